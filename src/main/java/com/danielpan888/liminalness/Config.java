@@ -16,13 +16,29 @@ public class Config {
             .defineInRange("minimum_rooms", 500, 10, Integer.MAX_VALUE);
 
     public static final ModConfigSpec.IntValue LIMINALNESS_STEPS_PER_TICK = BUILDER
-            .comment("Number of rooms to generate per tick. Increase this value to allow the mod to generate the number of rooms faster, reduce to prevent CPU load.")
+            .comment("Number of rooms to generate per tick in one dimension, also the cap on its share of global_steps_per_tick. Increase this value to allow the mod to generate the number of rooms faster, reduce to prevent CPU load.")
             .defineInRange("steps_per_tick", 10, 1, Integer.MAX_VALUE);
 
+    public static final ModConfigSpec.IntValue LIMINALNESS_GLOBAL_STEPS_PER_TICK = BUILDER
+            .comment("Room steps per tick shared by every dimension that has players or a running pregen. Each dimension gets a share weighted by its players and open frontier, capped at steps_per_tick.")
+            .defineInRange("global_steps_per_tick", 20, 1, Integer.MAX_VALUE);
+
     public static final ModConfigSpec.IntValue LIMINALNESS_TELEPORT_RANGE = BUILDER
             .comment("Max radius of blocks from 0, 0 that a player can end up on random teleportation.")
             .defineInRange("teleport_range", 2560000, 2000, Integer.MAX_VALUE);
 
+    public static final ModConfigSpec.IntValue LIMINALNESS_PARALLEL_EXPANSION_BATCH = BUILDER
+            .comment("Number of frontier connections evaluated in parallel while below minimum_rooms. 0 or 1 keeps expansion on the server thread. Output is deterministic for a given seed and batch size.")
+            .defineInRange("parallel_expansion_batch", 0, 0, 256);
+
+    public static final ModConfigSpec.IntValue LIMINALNESS_PREGEN_CHUNKS_PER_TICK = BUILDER
+            .comment("Chunks a /liminalness pregen job requests per tick. At most four times this many are generating at once. Lower it to leave more room for players during a running job.")
+            .defineInRange("pregen_chunks_per_tick", 4, 1, 64);
+
+    public static final ModConfigSpec.IntValue LIMINALNESS_PORTAL_PARTICLE_INTERVAL = BUILDER
+            .comment("Ticks between portal particle updates sent to nearby players. Only portals in front of the player are sent. Raise it to cut network traffic around busy portal rooms.")
+            .defineInRange("portal_particle_interval", 1, 1, 40);
+
     public static final ModConfigSpec.BooleanValue LIMINALNESS_ENABLE_ENCHANTMENTS = BUILDER
             .comment("Random chest loot can spawn with enchantments.")
             .define("enable_enchantments", true);
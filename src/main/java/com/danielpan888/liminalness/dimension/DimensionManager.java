@@ -1,5 +1,8 @@
 package com.danielpan888.liminalness.dimension;
 
+import com.danielpan888.liminalness.Config;
+import com.danielpan888.liminalness.dimension.pregen.PregenHandler;
+import com.danielpan888.liminalness.dimension.warmup.WarmupHandler;
 import com.danielpan888.liminalness.liminalness;
 import com.danielpan888.liminalness.util.DimensionConfig;
 import com.danielpan888.liminalness.util.DimensionConfigLoader;
@@ -11,8 +14,11 @@ import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.packs.resources.ResourceManager;
 import net.minecraft.world.level.chunk.ChunkGenerator;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -26,6 +32,13 @@ public class DimensionManager {
     private static final Map<ResourceLocation, DimensionConfig> pendingConfigs = new HashMap<>();
     private static long worldSeed = 0;
 
+    // sorted snapshot of managed dimensions, replaced whole on load/unload/initialize so readers never lock
+    public record ManagedDimensions(int version, ResourceLocation[] loaded, ResourceLocation[] ready) {}
+
+    private record ScheduledDimension(FrontierChunkGenerator generator, double weight) {}
+
+    private static volatile ManagedDimensions managedDimensions = new ManagedDimensions(0, new ResourceLocation[0], new ResourceLocation[0]);
+
     // register dimensions
     public static void register(ResourceLocation dimensionId) {
         registeredIds.add(dimensionId);
@@ -73,6 +86,8 @@ public class DimensionManager {
 
     public static void onServerTick(MinecraftServer server) {
 
+        List<ScheduledDimension> scheduled = new ArrayList<>();
+
         for (ResourceLocation dimId : registeredIds) {
 
             // if level exists
@@ -86,6 +101,7 @@ public class DimensionManager {
                     generator = frontier;
                     generator.serverLevel = level;
                     generator.dimensionId = dimId;
+                    refreshManagedDimensions();
                     liminalness.LOGGER.info("dimension manager - found generator for {}", dimId);
                 }
             }
@@ -101,6 +117,7 @@ public class DimensionManager {
 
                 generator.initialize(config, worldSeed);
                 generator.initialized = true;
+                refreshManagedDimensions();
 
                 // load saved dungeon state with frontiers
                 if (level != null) {
@@ -122,7 +139,70 @@ public class DimensionManager {
                 generator.serverLevel = level;
             }
 
-            generator.tick();
+            if (level != null) {
+                generator.maintain();
+                PregenHandler.tick(level, generator);
+                WarmupHandler.tick(level, generator);
+            }
+
+            // nothing to plan around means nothing to expand, anchors keep pregen and warm-ups running
+            if (level == null) continue;
+            int planners = level.players().size() + generator.planningAnchorCount();
+            if (planners == 0) {
+                generator.clearTickSpend();
+                continue;
+            }
+
+            double backlog = Math.log1p(generator.frontierSize());
+            scheduled.add(new ScheduledDimension(generator, planners * (1.0 + backlog)));
+        }
+
+        runScheduled(scheduled);
+
+        for (ChunkGenerator generator : instances.values()) {
+            ((FrontierChunkGenerator) generator).flushWrites();
+        }
+    }
+
+    // one global step budget shared by weight, so more dimensions split the budget instead of adding to it;
+    // shares are rounded down and the leftover steps go to the largest fractions, so the shares never
+    // sum past the budget and a dimension left with no steps sits this tick out
+    private static void runScheduled(List<ScheduledDimension> scheduled) {
+        if (scheduled.isEmpty()) return;
+
+        double totalWeight = 0;
+        for (ScheduledDimension dimension : scheduled) {
+            totalWeight += dimension.weight();
+        }
+
+        int globalBudget = Config.LIMINALNESS_GLOBAL_STEPS_PER_TICK.get();
+        int count = scheduled.size();
+        int[] shares = new int[count];
+        double[] fractions = new double[count];
+        int remaining = globalBudget;
+        for (int i = 0; i < count; i++) {
+            double exact = globalBudget * scheduled.get(i).weight() / totalWeight;
+            shares[i] = (int) exact;
+            fractions[i] = exact - shares[i];
+            remaining -= shares[i];
+        }
+
+        List<Integer> byFraction = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byFraction.add(i);
+        }
+        byFraction.sort(Comparator.comparingDouble((Integer i) -> fractions[i]).reversed());
+        for (int i = 0; i < count && remaining > 0; i++, remaining--) {
+            shares[byFraction.get(i)]++;
+        }
+
+        for (int i = 0; i < count; i++) {
+            FrontierChunkGenerator generator = scheduled.get(i).generator();
+            if (shares[i] > 0) {
+                generator.tick(shares[i]);
+            } else {
+                generator.clearTickSpend();
+            }
         }
     }
 
@@ -136,6 +216,7 @@ public class DimensionManager {
         instances.put(dimId, gen);
         gen.serverLevel = level;
         gen.dimensionId = dimId;
+        refreshManagedDimensions();
 
         liminalness.LOGGER.info("dimension manager - loaded {}", dimId);
     }
@@ -148,10 +229,12 @@ public class DimensionManager {
         if (gen == null) return;
 
         gen.pause();
+        WarmupHandler.onLevelUnload(level, gen);
         FrontierSavedData.saveNow(level, gen);
         gen.serverLevel = null;
         gen.dimensionId = dimId;
         instances.remove(dimId);
+        refreshManagedDimensions();
 
         liminalness.LOGGER.info("dimension manager - unloaded {}", dimId);
     }
@@ -167,6 +250,9 @@ public class DimensionManager {
             gen.serverLevel = null;
         }
         instances.clear();
+        refreshManagedDimensions();
+        PregenHandler.onServerStop();
+        WarmupHandler.onServerStop();
         liminalness.LOGGER.info("dimension manager - server stopped, all dimensions saved");
     }
 
@@ -188,4 +274,29 @@ public class DimensionManager {
         return Collections.unmodifiableSet(registeredIds);
     }
 
+    public static ManagedDimensions getManagedDimensions() {
+        return managedDimensions;
+    }
+
+    private static void refreshManagedDimensions() {
+        List<ResourceLocation> loaded = new ArrayList<>();
+        List<ResourceLocation> ready = new ArrayList<>();
+
+        for (var entry : instances.entrySet()) {
+            if (!registeredIds.contains(entry.getKey())) continue;
+            loaded.add(entry.getKey());
+            if (entry.getValue() instanceof FrontierChunkGenerator generator && generator.isReady()) {
+                ready.add(entry.getKey());
+            }
+        }
+
+        loaded.sort(Comparator.comparing(ResourceLocation::toString));
+        ready.sort(Comparator.comparing(ResourceLocation::toString));
+        managedDimensions = new ManagedDimensions(
+            managedDimensions.version() + 1,
+            loaded.toArray(new ResourceLocation[0]),
+            ready.toArray(new ResourceLocation[0])
+        );
+    }
+
 }
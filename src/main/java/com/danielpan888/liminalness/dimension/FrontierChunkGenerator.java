@@ -4,34 +4,59 @@ import com.danielpan888.liminalness.Config;
 import com.danielpan888.liminalness.liminalness;
 import com.danielpan888.liminalness.util.ChestLootHandler;
 import com.danielpan888.liminalness.util.DimensionConfig;
+import com.danielpan888.liminalness.util.FrontierQueue;
+import com.danielpan888.liminalness.util.PortalIndex;
 import com.danielpan888.liminalness.util.RoomSpatialIndex;
 import com.danielpan888.liminalness.util.SchematicLoader;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.shorts.ShortOpenHashSet;
+import it.unimi.dsi.fastutil.shorts.ShortSet;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
+import net.minecraft.core.SectionPos;
 import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.nbt.CompoundTag;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.game.ClientboundSectionBlocksUpdatePacket;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerChunkCache;
 import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.server.level.ThreadedLevelLightEngine;
 import net.minecraft.server.level.WorldGenRegion;
+import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.LevelHeightAccessor;
+import net.minecraft.world.level.LightLayer;
 import net.minecraft.world.level.NoiseColumn;
 import net.minecraft.world.level.StructureManager;
 import net.minecraft.world.level.biome.BiomeManager;
 import net.minecraft.world.level.biome.BiomeSource;
 import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.entity.BlockEntity;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.chunk.ChunkAccess;
 import net.minecraft.world.level.chunk.ChunkGenerator;
+import net.minecraft.world.level.chunk.DataLayer;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainer;
 import net.minecraft.world.level.levelgen.GenerationStep;
 import net.minecraft.world.level.levelgen.Heightmap;
 import net.minecraft.world.level.levelgen.RandomState;
 import net.minecraft.world.level.levelgen.blending.Blender;
+import net.minecraft.world.level.lighting.LightEngine;
 import net.minecraft.world.phys.Vec3;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
 
 public abstract class FrontierChunkGenerator extends ChunkGenerator {
 
@@ -45,43 +70,67 @@ public abstract class FrontierChunkGenerator extends ChunkGenerator {
     public volatile ResourceLocation dimensionId;
 
     // reserved block markers from placed schematics
-    public final Set<BlockPos> portalPositions = ConcurrentHashMap.newKeySet();
-    public final Set<BlockPos> jigsawPortalPositions = ConcurrentHashMap.newKeySet();
-    public final Set<BlockPos> structurePortalPositions = ConcurrentHashMap.newKeySet();
-    public final Set<BlockPos> chestPositions = ConcurrentHashMap.newKeySet();
+    public final PortalIndex portalPositions = new PortalIndex();
+    public final PortalIndex jigsawPortalPositions = new PortalIndex();
+    public final PortalIndex structurePortalPositions = new PortalIndex();
     public final Set<BlockPos> consumedChests = ConcurrentHashMap.newKeySet();
 
 
-    // current frontier connection points
     public final Set<BlockPos> claimed = ConcurrentHashMap.newKeySet();
-    public final ArrayDeque<FrontierEntry> frontiers = new ArrayDeque<>();
-    private final Map<BlockPos, List<FrontierEntry>> frontierGroups = new HashMap<>();
-    private final Map<SchematicLoader.Schematic, Map<Long, List<ChunkBlockPlacement>>> chunkPlacementCache = new ConcurrentHashMap<>();
-    public final Map<SchematicLoader.Schematic, int[]> extentsCache = new ConcurrentHashMap<>();
+    // current frontier connection points, split into square regions so that distant
+    // players expand independently of each other; during a tick a shard is only touched by one worker
+    private final TreeMap<Long, FrontierQueue<FrontierEntry>> frontierShards = new TreeMap<>();
+    private long bootstrapShardCursor = Long.MIN_VALUE;
     public final Map<BlockPos, SchematicLoader.Schematic> roomOrigins = new ConcurrentHashMap<>();
 
-    // generated patched chunks
+    // generated patched chunks; worldgen workers only read roomOrigins and spatialIndex and
+    // report what they wrote through chunkTransitions, the chunk state below is only ever
+    // written on the server thread
+    private final ConcurrentLinkedQueue<ChunkTransition> chunkTransitions = new ConcurrentLinkedQueue<>();
     public final Set<Long> committedChunks = ConcurrentHashMap.newKeySet();
     public final Set<Long> pendingChunks = ConcurrentHashMap.newKeySet();
 
     public final RoomSpatialIndex spatialIndex = new RoomSpatialIndex();
-    private final Map<Long, List<SchematicLoader.Schematic>> candidateIndex = new HashMap<>();
+    private final Map<Long, SchematicMeta[]> candidateIndex = new HashMap<>();
+
+    // disconnected restarts that already failed; rooms are only ever added, so a failed
+    // anchor/shape pair can never fit later and stays cached until the index is rebuilt
+    private final Set<DeadEnd> deadEnds = new HashSet<>();
+    private int failedRestartRoomCount = -1;
 
     public final Set<BlockPos> persistedRooms = ConcurrentHashMap.newKeySet();
     public final Set<Long> stalePatchedChunks = ConcurrentHashMap.newKeySet();
-    private final ArrayDeque<Long> staleChunkQueue = new ArrayDeque<>();
-    private final Set<Long> queuedStaleChunks = ConcurrentHashMap.newKeySet();
+    // stale chunks that are loaded right now; filled by chunk load events, drained by the tick
+    private final Set<Long> loadedStaleChunks = ConcurrentHashMap.newKeySet();
+    // loaded chunks whose chest markers still need loot, filled once their rooms are written
+    private final Set<Long> loadedChestChunks = ConcurrentHashMap.newKeySet();
+    // how often a generated chunk still needed a room pasted in afterwards
+    private final LongAdder generatedChunks = new LongAdder();
+    private final LongAdder patchedChunks = new LongAdder();
+
+    // lru of prebuilt section block states, shared by the worldgen workers
+    private final Map<SectionTemplateKey, PalettedContainer<BlockState>> sectionTemplates = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<SectionTemplateKey, PalettedContainer<BlockState>> eldest) {
+            return size() > SECTION_TEMPLATE_CACHE_SIZE;
+        }
+    };
+    private final LongAdder sectionTemplateHits = new LongAdder();
+    private final LongAdder sectionTemplateMisses = new LongAdder();
     // Only these room/chunk pairs are eligible for live repair. Existing committed
     // chunks are left alone so later generation cannot overwrite player edits.
     private final Map<Long, Set<BlockPos>> pendingRoomChunks = new ConcurrentHashMap<>();
-
-    // lookup table filtering schematics based on connection points available
-    private final Map<SchematicLoader.Schematic, String> schematicPaths = new HashMap<>();
+    // room writes made since the last flush, keyed by packed section pos, sent to watchers at the end of the server tick
+    private final Map<Long, ShortSet> dirtySections = new HashMap<>();
+    private final Set<BlockPos> dirtyBlockEntities = new HashSet<>();
+    // sections pasted into this tick, their block light is cleared and relit once at the flush
+    private final LongSet relightSections = new LongOpenHashSet();
+
+    // lookup table filtering schematics based on connection points available; schematic
+    // records hash their whole block maps, so per-variant data is keyed by identity and
+    // republished as a whole on initialize for worldgen threads
+    private volatile Map<SchematicLoader.Schematic, SchematicMeta> schematicMeta = new IdentityHashMap<>();
     private final Map<String, SchematicLoader.Schematic> pathToSchematic = new HashMap<>();
-    private final Map<SchematicLoader.Schematic, Integer> schematicWeights = new HashMap<>();
-    private final Map<SchematicLoader.Schematic, String> schematicFamilies = new HashMap<>();
-    private final Map<SchematicLoader.Schematic, Set<Integer>> schematicLevels = new HashMap<>();
-    private final Map<SchematicLoader.Schematic, Boolean> schematicLiteralMatches = new HashMap<>();
     private final Map<String, Boolean> familyCanConnectItselfVertically = new HashMap<>();
     private final Map<String, Boolean> familyCanConnectItselfHorizontally = new HashMap<>();
     private final Map<String, Integer> familyWeightPenalty = new HashMap<>();
@@ -95,6 +144,36 @@ public abstract class FrontierChunkGenerator extends ChunkGenerator {
     private static final int DEFAULT_RECENT_FAMILY_WINDOW = 10;
     private static final int DEFAULT_MINIMUM_ROOMS = 500;
     private static final int DEFAULT_STEPS_PER_TICK = 10;
+    private static final int SHARD_SIZE = 512;
+    private static final int PLANNING_LOOKAHEAD_TICKS = 40;
+    // player velocity is measured over this many ticks, longer gaps count as standing still
+    private static final int MOTION_SAMPLE_TICKS = 10;
+    private static final int MOTION_SAMPLE_MAX_GAP = 100;
+    // faster than an elytra, so the jump was a teleport and not movement
+    private static final double MOTION_MAX_BLOCKS_PER_TICK = 4.0;
+    private static final int SECTION_TEMPLATE_CACHE_SIZE = 2048;
+    private static final int NO_ROOM = -1;
+    private static final int MANY_ROOMS = -2;
+    private static final int[] DEFAULT_LEVELS = {1};
+    private static final Heightmap.Types[] PASTE_HEIGHTMAPS = {
+        Heightmap.Types.MOTION_BLOCKING,
+        Heightmap.Types.MOTION_BLOCKING_NO_LEAVES,
+        Heightmap.Types.OCEAN_FLOOR,
+        Heightmap.Types.WORLD_SURFACE
+    };
+
+    private static final ThreadLocal<EvaluationScratch> EVALUATION_SCRATCH = ThreadLocal.withInitial(EvaluationScratch::new);
+    private static final ThreadLocal<ColumnScratch> COLUMN_SCRATCH = ThreadLocal.withInitial(ColumnScratch::new);
+
+    // shared by all frontier dimensions, only used for read-only candidate evaluation
+    private static final ExecutorService EXPANSION_POOL = Executors.newFixedThreadPool(
+        Math.max(1, Runtime.getRuntime().availableProcessors() - 1),
+        runnable -> {
+            Thread thread = new Thread(runnable, "liminalness-expansion");
+            thread.setDaemon(true);
+            return thread;
+        }
+    );
 
     // default dimension json config
     public int playerSpawnGenerationY = 128;
@@ -102,9 +181,22 @@ public abstract class FrontierChunkGenerator extends ChunkGenerator {
     public int dimensionMaxGenerationY = 384;
     public int radiusHorizontal = 256;
     public int radiusVertical = 64;
+    // radiusHorizontal widened each tick to cover every chunk players can load
+    private int planningRadius = 256;
+    // positions besides players that expansion plans around, like a running pregen job
+    private final Set<BlockPos> planningAnchors = ConcurrentHashMap.newKeySet();
+    // server side player velocity is not driven by client movement, so it is measured here instead
+    private final Map<UUID, MotionSample> playerMotion = new HashMap<>();
 
     public int minRooms = DEFAULT_MINIMUM_ROOMS;
     public int stepsPerTick = DEFAULT_STEPS_PER_TICK;
+    // expansion steps granted for the current tick by the dimension manager, never above stepsPerTick
+    private int stepBudget = DEFAULT_STEPS_PER_TICK;
+    // first region to receive budget, rotated so a small budget does not starve the same regions
+    private int shardBudgetOffset;
+    private volatile int lastTickBudget;
+    private volatile int lastTickRooms;
+    private volatile long lastTickNanos;
 
     public BlockState fillSpaceState = Blocks.AIR.defaultBlockState();
 
@@ -128,6 +220,10 @@ public abstract class FrontierChunkGenerator extends ChunkGenerator {
         return Config.LIMINALNESS_TELEPORT_RANGE.get();
     }
 
+    private static int configuredParallelExpansionBatch() {
+        return Config.LIMINALNESS_PARALLEL_EXPANSION_BATCH.get();
+    }
+
     public record FrontierEntry(
         BlockPos sourceRoomOrigin,
         BlockPos attachPoint,
@@ -144,10 +240,160 @@ public abstract class FrontierChunkGenerator extends ChunkGenerator {
         BlockPos origin
     ) {}
 
+    private record ShardProposal(
+        FrontierEntry entry,
+        PlacementOption option,
+        boolean crossesBorder
+    ) {}
+
+    private record MotionSample(
+        double x,
+        double z,
+        long gameTime,
+        double velocityX,
+        double velocityZ
+    ) {}
+
+    // flattened per-variant data read by the candidate search
+    private static final class SchematicMeta {
+        private final SchematicLoader.Schematic schematic;
+        private final String path;
+        private final String family;
+        private final int weight;
+        private final int[] levels;
+        private final boolean literalMatch;
+        private final int[] extents;
+        private final SchematicLoader.ConnectionPoint[] connectionPoints;
+        private volatile Map<Long, List<ChunkBlockPlacement>> chunkPlacements;
+        // block states laid out column by column, null where the schematic leaves the fill
+        private volatile BlockState[] columns;
+
+        private SchematicMeta(SchematicLoader.Schematic schematic, String path, String family, int weight, Set<Integer> levels, boolean literalMatch) {
+            this.schematic = schematic;
+            this.path = path;
+            this.family = family;
+            this.weight = weight;
+            this.levels = levels.stream().mapToInt(Integer::intValue).toArray();
+            this.literalMatch = literalMatch;
+            this.extents = new int[]{schematic.extentX(), schematic.extentY(), schematic.extentZ()};
+            this.connectionPoints = schematic.connectionPoints().toArray(SchematicLoader.ConnectionPoint[]::new);
+        }
+
+        private boolean hasLevel(int level) {
+            for (int candidateLevel : levels) {
+                if (candidateLevel == level) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private BlockState columnState(int localX, int localY, int localZ) {
+            BlockState[] states = columns;
+            if (states == null) {
+                states = new BlockState[extents[0] * extents[1] * extents[2]];
+                for (var block : schematic.finalBlocks().entrySet()) {
+                    BlockPos local = block.getKey();
+                    if (local.getX() < 0 || local.getX() >= extents[0]) continue;
+                    if (local.getY() < 0 || local.getY() >= extents[1]) continue;
+                    if (local.getZ() < 0 || local.getZ() >= extents[2]) continue;
+                    states[columnIndex(local.getX(), local.getY(), local.getZ())] = block.getValue();
+                }
+                columns = states;
+            }
+            return states[columnIndex(localX, localY, localZ)];
+        }
+
+        private int columnIndex(int localX, int localY, int localZ) {
+            return (localX * extents[2] + localZ) * extents[1] + localY;
+        }
+    }
+
+    // reusable buffers for one candidate search, one per thread since evaluation runs on
+    // the expansion pool; valid placements are packed origins grouped per candidate
+    // rooms covering one column for the height probes vanilla runs during structure and spawn checks
+    private static final class ColumnScratch {
+        private BlockPos[] origins = new BlockPos[4];
+        private SchematicMeta[] metas = new SchematicMeta[4];
+        private int count;
+        private FrontierChunkGenerator generator;
+
+        private void reset(FrontierChunkGenerator generator) {
+            this.generator = generator;
+            count = 0;
+        }
+
+        // origins the index holds before roomOrigins does, or without metadata, are skipped
+        private static void add(ColumnScratch scratch, BlockPos origin) {
+            SchematicMeta meta = scratch.generator.metaOf(scratch.generator.roomOrigins.get(origin));
+            if (meta == null) return;
+
+            if (scratch.count == scratch.origins.length) {
+                scratch.origins = Arrays.copyOf(scratch.origins, scratch.count * 2);
+                scratch.metas = Arrays.copyOf(scratch.metas, scratch.count * 2);
+            }
+            scratch.origins[scratch.count] = origin;
+            scratch.metas[scratch.count] = meta;
+            scratch.count++;
+        }
+    }
+
+    private static final class EvaluationScratch {
+        private SchematicMeta[] candidates = new SchematicMeta[16];
+        private int[] optionStart = new int[16];
+        private int[] optionCount = new int[16];
+        private long[] origins = new long[64];
+        private int candidateCount;
+        private int originCount;
+        private final BlockPos.MutableBlockPos probe = new BlockPos.MutableBlockPos();
+
+        private void reset() {
+            candidateCount = 0;
+            originCount = 0;
+        }
+
+        private void addOrigin(long packedOrigin) {
+            if (originCount == origins.length) {
+                origins = Arrays.copyOf(origins, origins.length * 2);
+            }
+            origins[originCount++] = packedOrigin;
+        }
+
+        private void addCandidate(SchematicMeta candidate, int start, int count) {
+            if (candidateCount == candidates.length) {
+                candidates = Arrays.copyOf(candidates, candidates.length * 2);
+                optionStart = Arrays.copyOf(optionStart, optionStart.length * 2);
+                optionCount = Arrays.copyOf(optionCount, optionCount.length * 2);
+            }
+            candidates[candidateCount] = candidate;
+            optionStart[candidateCount] = start;
+            optionCount[candidateCount] = count;
+            candidateCount++;
+        }
+    }
+
+    private record DeadEnd(
+        BlockPos anchor,
+        long shapeKey
+    ) {}
+
+    private record ChunkTransition(
+        long chunkKey,
+        List<BlockPos> writtenOrigins,
+        boolean allResolved
+    ) {}
+
+    // position of a chunk section relative to the origin of the one room covering it
+    private record SectionTemplateKey(
+        SchematicMeta meta,
+        int localX,
+        int localY,
+        int localZ
+    ) {}
+
     private record ChunkBlockPlacement(
         BlockPos localPos,
-        BlockState state,
-        boolean chest
+        BlockState state
     ) {}
 
     // --- the usual initization things ---
@@ -157,16 +403,9 @@ public abstract class FrontierChunkGenerator extends ChunkGenerator {
         this.running = false;
         this.roomOrigins.clear();
         this.claimed.clear();
-        this.frontiers.clear();
-        this.frontierGroups.clear();
-        this.extentsCache.clear();
-        this.chunkPlacementCache.clear();
-        this.schematicPaths.clear();
+        this.frontierShards.clear();
+        this.bootstrapShardCursor = Long.MIN_VALUE;
         this.pathToSchematic.clear();
-        this.schematicWeights.clear();
-        this.schematicFamilies.clear();
-        this.schematicLevels.clear();
-        this.schematicLiteralMatches.clear();
         this.familyCanConnectItselfVertically.clear();
         this.familyCanConnectItselfHorizontally.clear();
         this.familyWeightPenalty.clear();
@@ -181,11 +420,12 @@ public abstract class FrontierChunkGenerator extends ChunkGenerator {
         this.portalPositions.clear();
         this.jigsawPortalPositions.clear();
         this.structurePortalPositions.clear();
-        this.chestPositions.clear();
         this.consumedChests.clear();
-        this.staleChunkQueue.clear();
-        this.queuedStaleChunks.clear();
+        this.loadedStaleChunks.clear();
+        this.loadedChestChunks.clear();
         this.pendingRoomChunks.clear();
+        this.deadEnds.clear();
+        this.failedRestartRoomCount = -1;
 
         candidateIndex.clear();
 
@@ -199,6 +439,7 @@ public abstract class FrontierChunkGenerator extends ChunkGenerator {
         minRooms         = configuredMinimumRooms();
         stepsPerTick     = configuredStepsPerTick();
 
+        Map<SchematicLoader.Schematic, SchematicMeta> metas = new IdentityHashMap<>();
         for (DimensionConfig.SchematicEntry entry : dimensionConfig.schematics()) {
             List<Map.Entry<String, SchematicLoader.Schematic>> variants = SchematicLoader.createHorizontalVariants(entry.path(), entry.schematic(), entry.mirroredVariants());
 
@@ -214,12 +455,8 @@ public abstract class FrontierChunkGenerator extends ChunkGenerator {
                 SchematicLoader.Schematic schematic = variant.getValue();
                 familyVariants.add(schematic);
                 schematics.add(schematic);
-                schematicPaths.put(schematic, variant.getKey());
                 pathToSchematic.put(variant.getKey(), schematic);
-                schematicWeights.put(schematic, entry.weight());
-                schematicFamilies.put(schematic, family);
-                schematicLevels.put(schematic, entry.levels());
-                schematicLiteralMatches.put(schematic, entry.literalMatch());
+                metas.put(schematic, new SchematicMeta(schematic, variant.getKey(), family, entry.weight(), entry.levels(), entry.literalMatch()));
 
                 if (firstVariant) {
                     pathToSchematic.put(entry.path(), schematic);
@@ -241,13 +478,17 @@ public abstract class FrontierChunkGenerator extends ChunkGenerator {
 
             variantsByBasePath.put(entry.path(), familyVariants);
         }
+        schematicMeta = metas;
+        synchronized (sectionTemplates) {
+            sectionTemplates.clear();
+        }
 
         spatialIndex.clear();
         for (var entry : roomOrigins.entrySet()) {
             spatialIndex.add(entry.getKey(), getExtents(entry.getValue()));
         }
 
-        Map<Long, Map<SchematicLoader.Schematic, Integer>> uniqueByKey = new HashMap<>();
+        Map<Long, List<SchematicMeta>> uniqueByKey = new HashMap<>();
 
         for (DimensionConfig.SchematicEntry entry : dimensionConfig.schematics()) {
             if (entry.weight() == 0) continue;
@@ -255,17 +496,18 @@ public abstract class FrontierChunkGenerator extends ChunkGenerator {
                 for (SchematicLoader.ConnectionPoint connectionPoint : schematic.connectionPoints()) {
 
                     long key = connectionShapeSignature(connectionPoint.facing(), connectionPoint.width(), connectionPoint.height());
-                    uniqueByKey.computeIfAbsent(key, k -> new LinkedHashMap<>()).merge(schematic, entry.weight(), Math::max);
+                    List<SchematicMeta> unique = uniqueByKey.computeIfAbsent(key, k -> new ArrayList<>());
+                    SchematicMeta meta = metas.get(schematic);
+                    if (!unique.contains(meta)) {
+                        unique.add(meta);
+                    }
 
                 }
             }
         }
 
         for (var e : uniqueByKey.entrySet()) {
-            long key = e.getKey();
-            List<SchematicLoader.Schematic> schemList = new ArrayList<>(e.getValue().keySet());
-
-            candidateIndex.put(key, schemList);
+            candidateIndex.put(e.getKey(), e.getValue().toArray(SchematicMeta[]::new));
         }
 
         liminalness.LOGGER.info("frontier generator - initialization complete in: {} with {} schematics and weights: {}", getDimensionId(), schematics.size(), weightedPool.size());
@@ -280,7 +522,7 @@ public abstract class FrontierChunkGenerator extends ChunkGenerator {
 
     public void resume() {
         running = true;
-        liminalness.LOGGER.info("frontier generator - {}: resumed - frontier: {} rooms: {}", getDimensionId(), frontiers.size(), roomOrigins.size());
+        liminalness.LOGGER.info("frontier generator - {}: resumed - frontier: {} rooms: {}", getDimensionId(), frontierSize(), roomOrigins.size());
     }
 
     public void pause() {
@@ -288,24 +530,35 @@ public abstract class FrontierChunkGenerator extends ChunkGenerator {
     }
 
     public void clearFrontier() {
-        this.frontiers.clear();
-        this.frontierGroups.clear();
+        this.frontierShards.clear();
+        this.bootstrapShardCursor = Long.MIN_VALUE;
     }
 
     public void resetStaleChunkTracking() {
+        chunkTransitions.clear();
         stalePatchedChunks.clear();
-        staleChunkQueue.clear();
-        queuedStaleChunks.clear();
+        loadedStaleChunks.clear();
         pendingRoomChunks.clear();
         pendingChunks.clear();
     }
 
+    // a chunk that is already loaded will not fire a load event, so it is ready straight away
     public void markChunkStale(long chunkKey) {
-        if (stalePatchedChunks.add(chunkKey) && queuedStaleChunks.add(chunkKey)) {
-            staleChunkQueue.addLast(chunkKey);
+        stalePatchedChunks.add(chunkKey);
+        ServerLevel level = serverLevel;
+        if (level != null && level.getChunkSource().getChunkNow((int) (chunkKey >> 32), (int) chunkKey) != null) {
+            loadedStaleChunks.add(chunkKey);
         }
     }
 
+    public void onChunkLoaded(int chunkX, int chunkZ) {
+        long key = chunkKey(chunkX, chunkZ);
+        if (stalePatchedChunks.contains(key)) {
+            loadedStaleChunks.add(key);
+        }
+        loadedChestChunks.add(key);
+    }
+
     /** Queues only the unresolved parts of a restored room for chunk repair. */
     public void queueUncommittedRoomChunks(BlockPos origin, SchematicLoader.Schematic schematic) {
         int[] extents = getExtents(schematic);
@@ -338,6 +591,11 @@ public abstract class FrontierChunkGenerator extends ChunkGenerator {
         return origins != null && !origins.isEmpty();
     }
 
+    // some room has been planned over the chunk, written or still waiting for generation
+    public boolean isChunkPlanned(long chunkKey) {
+        return committedChunks.contains(chunkKey) || hasPendingRoomChunk(chunkKey);
+    }
+
     /** Applies only room data that was queued for this loaded chunk. */
     public boolean repairPendingChunk(int chunkX, int chunkZ) {
         return patchChunk(chunkX, chunkZ);
@@ -550,6 +808,11 @@ public abstract class FrontierChunkGenerator extends ChunkGenerator {
             return;
         }
 
+        // same room count means the same attempts against the same rooms, skip the repeat
+        if (failedRestartRoomCount == roomOrigins.size()) {
+            return;
+        }
+
         long hash = worldSeed;
         hash ^= (long) roomOrigins.size() * 0x9E3779B97F4A7C15L;
         hash ^= getDimensionId().toString().hashCode();
@@ -563,8 +826,14 @@ public abstract class FrontierChunkGenerator extends ChunkGenerator {
             hash = Long.rotateLeft(hash, 17) * 0x94D049BB133111EBL;
             SchematicLoader.Schematic candidate = weightedPool.get((int) Long.remainderUnsigned(hash, weightedPool.size()));
 
+            DeadEnd deadEnd = new DeadEnd(anchorEntry.getKey(), extentsKey(getExtents(candidate)));
+            if (deadEnds.contains(deadEnd)) {
+                continue;
+            }
+
             BlockPos candidateOrigin = findDisconnectedPlacement(anchorEntry.getKey(), anchorEntry.getValue(), candidate, hash);
             if (candidateOrigin == null) {
+                deadEnds.add(deadEnd);
                 continue;
             }
 
@@ -581,6 +850,8 @@ public abstract class FrontierChunkGenerator extends ChunkGenerator {
             liminalness.LOGGER.info("frontier generator - restarted disconnected generation with {} at {}", getPathBySchematic(candidate), candidateOrigin);
             return;
         }
+
+        failedRestartRoomCount = roomOrigins.size();
     }
 
     private BlockPos findDisconnectedPlacement(BlockPos anchorOrigin, SchematicLoader.Schematic anchor, SchematicLoader.Schematic candidate, long hash) {
@@ -627,11 +898,48 @@ public abstract class FrontierChunkGenerator extends ChunkGenerator {
 
     // --- frontier creation ---
 
-    // main driver for frontier expansion
-    public void tick() {
+    // main driver for frontier expansion, spend is recorded for the dimension manager and debug screen
+    public void tick(int budget) {
+        long startedAt = System.nanoTime();
+        int roomsBefore = roomOrigins.size();
+        stepBudget = Math.max(1, Math.min(budget, stepsPerTick));
+
+        try {
+            runTick();
+        } finally {
+            lastTickBudget = stepBudget;
+            lastTickRooms = roomOrigins.size() - roomsBefore;
+            lastTickNanos = System.nanoTime() - startedAt;
+        }
+    }
+
+    public int lastTickBudget() {
+        return lastTickBudget;
+    }
+
+    public int lastTickRooms() {
+        return lastTickRooms;
+    }
+
+    public long lastTickNanos() {
+        return lastTickNanos;
+    }
+
+    // skipped ticks spend nothing
+    public void clearTickSpend() {
+        lastTickBudget = 0;
+        lastTickRooms = 0;
+        lastTickNanos = 0;
+    }
+
+    public int planningAnchorCount() {
+        return planningAnchors.size();
+    }
+
+    private void runTick() {
 
         if (serverLevel == null) return;
-        List<BlockPos> playerPositions = serverLevel.players().stream().map(p -> p.blockPosition()).toList();
+        List<BlockPos> playerPositions = planningPositions();
         if (playerPositions.isEmpty()) return;
         if (needsSeed && isReady() && roomOrigins.isEmpty()) {
             needsSeed = false;
@@ -639,42 +947,283 @@ public abstract class FrontierChunkGenerator extends ChunkGenerator {
             return;
         }
         if (!running) return;
-        if (frontiers.isEmpty() && !roomOrigins.isEmpty() && isReady()) {
+        if (frontierSize() == 0 && !roomOrigins.isEmpty() && isReady()) {
             restartFromDisconnectedSeed();
         }
 
-        if (!stalePatchedChunks.isEmpty()) {
-            processStaleChunks(playerPositions);
+        // expand frontier processing
+        if (roomOrigins.size() < minRooms) {
+            int batchSize = configuredParallelExpansionBatch();
+            if (batchSize > 1) {
+                expandBootstrapBatches(batchSize);
+            } else {
+                expandBootstrap();
+            }
+        } else {
+            expandNearPlayers(playerPositions);
         }
 
-        // expand frontier processing
-        boolean belowMinRooms = roomOrigins.size() < minRooms;
+        frontierShards.values().removeIf(FrontierQueue::isEmpty);
+    }
+
+    // runs every server tick before any steps are handed out, dimensions without planners
+    // or without a share of the budget still take in worldgen results and repair stale chunks
+    public void maintain() {
+        if (serverLevel == null) return;
+        applyChunkTransitions();
+        if (running && !loadedStaleChunks.isEmpty()) {
+            processStaleChunks();
+        }
+        if (!loadedChestChunks.isEmpty()) {
+            fillLoadedChests();
+        }
+    }
+
+    // room writes come from the tick but also from events between ticks, like chunk watch
+    // repair and linked spawns, so the dimension manager flushes every generator once per
+    // server tick whether or not it ran
+    public void flushWrites() {
+        if (serverLevel == null) return;
+        flushDirtySections();
+    }
+
+    // aggressive expansion regardless of player range until the minimum room count is met
+    private void expandBootstrap() {
         int processed = 0;
         int scanned = 0;
-        int scanLimit = belowMinRooms ? frontiers.size() : Math.min(frontiers.size(), stepsPerTick * 8);
-        List<FrontierEntry> deferred = null;
+        int scanLimit = frontierSize();
 
-        while (processed < stepsPerTick && scanned < scanLimit && !frontiers.isEmpty()) {
+        while (processed < stepBudget && scanned < scanLimit) {
             List<FrontierEntry> competingEntries = pollFrontierGroup();
             if (competingEntries == null) {
-                continue;
+                break;
             }
             scanned++;
 
             FrontierEntry selectedEntry = chooseCompetingFrontier(competingEntries);
+            if (claimed.contains(selectedEntry.attachPoint())) continue;
+
+            expandFrontier(selectedEntry);
+            processed++;
+        }
+    }
+
+    // bootstrap expansion where each batch of frontier groups is evaluated on the worker pool
+    private void expandBootstrapBatches(int batchSize) {
+        int processed = 0;
+        int scanned = 0;
+        int scanLimit = frontierSize();
+        List<FrontierEntry> batch = new ArrayList<>(batchSize);
+
+        while (processed < stepBudget && scanned < scanLimit) {
+            batch.clear();
+            int wanted = Math.min(batchSize, stepBudget - processed);
+
+            while (batch.size() < wanted && scanned < scanLimit) {
+                List<FrontierEntry> competingEntries = pollFrontierGroup();
+                if (competingEntries == null) {
+                    break;
+                }
+                scanned++;
+
+                FrontierEntry selectedEntry = chooseCompetingFrontier(competingEntries);
+                if (claimed.contains(selectedEntry.attachPoint())) continue;
+                batch.add(selectedEntry);
+            }
+
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            commitSpeculativeBatch(batch);
+            processed += batch.size();
+        }
+    }
+
+    // evaluate against the rooms at batch start, then commit in queue order so the result
+    // only depends on the seed and batch size, never on thread timing; every worker has
+    // to finish before the first commit, commits write the structures the workers read
+    private void commitSpeculativeBatch(List<FrontierEntry> batch) {
+        boolean needsConnections = roomOrigins.size() < minRooms;
+        List<CompletableFuture<PlacementOption>> proposals = new ArrayList<>(batch.size());
+        for (FrontierEntry entry : batch) {
+            proposals.add(CompletableFuture.supplyAsync(() -> evaluateFrontier(entry, needsConnections), EXPANSION_POOL));
+        }
+        CompletableFuture.allOf(proposals.toArray(CompletableFuture[]::new)).join();
+
+        List<PlacementOption> committed = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            commitProposal(batch.get(i), proposals.get(i).join(), needsConnections, committed);
+        }
+    }
+
+    // regions near a player split the step budget, so more regions never means more work per tick
+    private void expandNearPlayers(List<BlockPos> playerPositions) {
+        List<FrontierQueue<FrontierEntry>> active = activeShards(playerPositions);
+        if (active.isEmpty()) {
+            return;
+        }
+
+        if (active.size() == 1) {
+            expandShard(active.getFirst(), playerPositions, stepBudget);
+            return;
+        }
+
+        // the remainder goes to the regions first in line this tick, and a budget smaller than
+        // the region count leaves the rest idle until the rotation reaches them
+        int shardCount = active.size();
+        int offset = Math.floorMod(shardBudgetOffset++, shardCount);
+        List<CompletableFuture<List<ShardProposal>>> tasks = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            int shardBudget = stepBudget / shardCount + (i < stepBudget % shardCount ? 1 : 0);
+            if (shardBudget == 0) break;
+
+            FrontierQueue<FrontierEntry> shard = active.get((offset + i) % shardCount);
+            tasks.add(CompletableFuture.supplyAsync(() -> proposeInShard(shard, playerPositions, shardBudget), EXPANSION_POOL));
+        }
+        CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).join();
+
+        // placements inside one region cannot touch another region's interior, so those commit
+        // first in region order; border crossers wait until every region has committed
+        List<PlacementOption> committed = new ArrayList<>();
+        List<ShardProposal> borderProposals = new ArrayList<>();
+        for (CompletableFuture<List<ShardProposal>> task : tasks) {
+            for (ShardProposal proposal : task.join()) {
+                if (proposal.crossesBorder()) {
+                    borderProposals.add(proposal);
+                    continue;
+                }
+                commitProposal(proposal.entry(), proposal.option(), false, committed);
+            }
+        }
+
+        for (ShardProposal proposal : borderProposals) {
+            commitProposal(proposal.entry(), proposal.option(), false, committed);
+        }
+    }
+
+    // serial expansion of one region, used when only one region is active
+    private void expandShard(FrontierQueue<FrontierEntry> shard, List<BlockPos> playerPositions, int budget) {
+        int processed = 0;
+        int scanned = 0;
+        int scanLimit = Math.min(shard.size(), budget * 8);
+
+        // a deferred group goes to the tail, so the scan limit stops before it comes round again
+        while (processed < budget && scanned < scanLimit) {
+            FrontierQueue.Group<FrontierEntry> group = shard.poll();
+            if (group == null) {
+                break;
+            }
+            scanned++;
+
+            FrontierEntry selectedEntry = chooseCompetingFrontier(group.entries());
 
             if (claimed.contains(selectedEntry.attachPoint())) continue;
 
-            if (belowMinRooms || isInRange(selectedEntry.attachPoint(), playerPositions)) {
+            if (isInRange(selectedEntry.attachPoint(), playerPositions)) {
                 expandFrontier(selectedEntry);
                 processed++;
             } else {
-                if (deferred == null) deferred = new ArrayList<>();
-                deferred.addAll(competingEntries);
+                shard.defer(group);
+            }
+        }
+    }
+
+    // worker side of a region: poll and evaluate only, the server thread commits
+    private List<ShardProposal> proposeInShard(FrontierQueue<FrontierEntry> shard, List<BlockPos> playerPositions, int budget) {
+        List<ShardProposal> proposals = new ArrayList<>();
+        int scanned = 0;
+        int scanLimit = Math.min(shard.size(), budget * 8);
+
+        while (proposals.size() < budget && scanned < scanLimit) {
+            FrontierQueue.Group<FrontierEntry> group = shard.poll();
+            if (group == null) {
+                break;
+            }
+            scanned++;
+
+            FrontierEntry selectedEntry = chooseCompetingFrontier(group.entries());
+
+            if (claimed.contains(selectedEntry.attachPoint())) continue;
+
+            if (isInRange(selectedEntry.attachPoint(), playerPositions)) {
+                PlacementOption option = evaluateFrontier(selectedEntry, false);
+                boolean crossesBorder = option != null && crossesShardBorder(selectedEntry, option);
+                proposals.add(new ShardProposal(selectedEntry, option, crossesBorder));
+            } else {
+                // a group never leaves its region, so deferring stays local to this worker
+                shard.defer(group);
+            }
+        }
+        return proposals;
+    }
+
+    // rooms are only added, so a failed evaluation stays failed; a proposal only needs another
+    // look when a room committed earlier in this tick invalidated it, or when minRooms was crossed
+    // since it was evaluated and the connection requirement it was filtered by no longer applies
+    private void commitProposal(FrontierEntry entry, PlacementOption proposal, boolean evaluatedWithConnections, List<PlacementOption> committed) {
+        boolean needsConnections = roomOrigins.size() < minRooms;
+        if (needsConnections != evaluatedWithConnections || (proposal != null && conflictsWithBatch(proposal, committed))) {
+            proposal = evaluateFrontier(entry, needsConnections);
+        }
+
+        if (proposal == null) {
+            claimed.add(entry.attachPoint());
+            return;
+        }
+
+        placeCandidate(entry, proposal.candidate(), proposal.origin());
+        committed.add(proposal);
+    }
+
+    // regions within generation range of at least one player, in region order
+    private List<FrontierQueue<FrontierEntry>> activeShards(List<BlockPos> playerPositions) {
+        Set<Long> keys = new TreeSet<>();
+        for (BlockPos player : playerPositions) {
+            int minShardX = Math.floorDiv(player.getX() - planningRadius, SHARD_SIZE);
+            int maxShardX = Math.floorDiv(player.getX() + planningRadius, SHARD_SIZE);
+            int minShardZ = Math.floorDiv(player.getZ() - planningRadius, SHARD_SIZE);
+            int maxShardZ = Math.floorDiv(player.getZ() + planningRadius, SHARD_SIZE);
+            for (int shardX = minShardX; shardX <= maxShardX; shardX++) {
+                for (int shardZ = minShardZ; shardZ <= maxShardZ; shardZ++) {
+                    keys.add(chunkKey(shardX, shardZ));
+                }
+            }
+        }
+
+        List<FrontierQueue<FrontierEntry>> active = new ArrayList<>();
+        for (long key : keys) {
+            FrontierQueue<FrontierEntry> shard = frontierShards.get(key);
+            if (shard != null && !shard.isEmpty()) {
+                active.add(shard);
+            }
+        }
+        return active;
+    }
+
+    private boolean crossesShardBorder(FrontierEntry entry, PlacementOption option) {
+        long entryShard = shardKey(entry.attachPoint().getX(), entry.attachPoint().getZ());
+        int[] extents = getExtents(option.candidate());
+        BlockPos origin = option.origin();
+        return shardKey(origin.getX(), origin.getZ()) != entryShard
+            || shardKey(origin.getX() + extents[0] - 1, origin.getZ() + extents[2] - 1) != entryShard;
+    }
+
+    private static long shardKey(int x, int z) {
+        return chunkKey(Math.floorDiv(x, SHARD_SIZE), Math.floorDiv(z, SHARD_SIZE));
+    }
+
+    private boolean conflictsWithBatch(PlacementOption proposal, List<PlacementOption> committed) {
+        int[] proposalExtents = getExtents(proposal.candidate());
+        for (PlacementOption placed : committed) {
+            if (boxesOverlap(proposal.origin(), proposalExtents, placed.origin(), getExtents(placed.candidate()))) {
+                return true;
             }
         }
 
-        if (deferred != null) enqueueFrontiers(deferred);
+        return !committed.isEmpty()
+            && roomOrigins.size() < minRooms
+            && countNewConnections(metaOf(proposal.candidate()), proposal.origin().getX(), proposal.origin().getY(), proposal.origin().getZ(), EVALUATION_SCRATCH.get().probe) == 0;
     }
 
     // add exposed connection plains to the frontier queue
@@ -684,9 +1233,9 @@ public abstract class FrontierChunkGenerator extends ChunkGenerator {
             BlockPos worldCorner = origin.offset(connectionPoint.corner());
             BlockPos attachPoint = worldCorner.relative(connectionPoint.facing(), 1);
 
-            for (int level : getLevelsForSchematic(schematic)) {
+            for (int level : levelsOf(schematic)) {
                 if (!claimed.contains(attachPoint)) {
-                    enqueueFrontier(new FrontierEntry(origin, attachPoint, connectionPoint.facing(), connectionPoint.width(), connectionPoint.height(), connectionPoint.patternHash(), connectionPoint.pattern().clone(), level));
+                    enqueueFrontier(new FrontierEntry(origin, attachPoint, connectionPoint.facing(), connectionPoint.width(), connectionPoint.height(), connectionPoint.patternHash(), connectionPoint.pattern(), level));
                 }
             }
 
@@ -695,36 +1244,39 @@ public abstract class FrontierChunkGenerator extends ChunkGenerator {
 
     // rebuild frontier from save
     public void reconstructFrontier() {
-        this.frontiers.clear();
-        this.frontierGroups.clear();
+        this.frontierShards.clear();
+        this.bootstrapShardCursor = Long.MIN_VALUE;
+        this.deadEnds.clear();
+        this.failedRestartRoomCount = -1;
         for (var entry : this.roomOrigins.entrySet()) {
             BlockPos origin = entry.getKey();
             SchematicLoader.Schematic schematic = entry.getValue();
             for (SchematicLoader.ConnectionPoint connectionPoint : schematic.connectionPoints()) {
                 BlockPos worldCorner = origin.offset(connectionPoint.corner());
                 BlockPos attachPoint = worldCorner.relative(connectionPoint.facing(), 1);
-                for (int level : getLevelsForSchematic(schematic)) {
+                for (int level : levelsOf(schematic)) {
                     if (!this.claimed.contains(attachPoint)) {
-                        enqueueFrontier(new FrontierEntry(origin, attachPoint, connectionPoint.facing(), connectionPoint.width(), connectionPoint.height(), connectionPoint.patternHash(), connectionPoint.pattern().clone(), level));
+                        enqueueFrontier(new FrontierEntry(origin, attachPoint, connectionPoint.facing(), connectionPoint.width(), connectionPoint.height(), connectionPoint.patternHash(), connectionPoint.pattern(), level));
                     }
                 }
             }
         }
-        liminalness.LOGGER.info("frontier generator - {} open connections from {} rooms", frontiers.size(), roomOrigins.size());
+        liminalness.LOGGER.info("frontier generator - {} open connections from {} rooms", frontierSize(), roomOrigins.size());
     }
 
 
 
     // --- chunk repairs and stale patching ---
 
-    /** Repairs a bounded number of stale chunks that are currently near players. */
-    private void processStaleChunks(List<BlockPos> playerPositions) {
+    /** Repairs a bounded number of stale chunks that have loaded since the last tick. */
+    private void processStaleChunks() {
         int budget = Math.max(stepsPerTick * 2, 16);
         int attempts = 0;
 
-        while (attempts < budget && !staleChunkQueue.isEmpty()) {
-            long ck = staleChunkQueue.pollFirst();
-            queuedStaleChunks.remove(ck);
+        Iterator<Long> iterator = loadedStaleChunks.iterator();
+        while (attempts < budget && iterator.hasNext()) {
+            long ck = iterator.next();
+            iterator.remove();
             attempts++;
 
             if (!stalePatchedChunks.contains(ck) || committedChunks.contains(ck)) {
@@ -732,19 +1284,11 @@ public abstract class FrontierChunkGenerator extends ChunkGenerator {
                 continue;
             }
 
-            int chunkX = (int) (ck >> 32);
-            int chunkZ = (int) ck;
-            if (!isChunkNearAnyPlayer(chunkX, chunkZ, playerPositions)) {
-                requeueStaleChunk(ck);
-                continue;
-            }
-
-            if (patchChunk(chunkX, chunkZ)) {
+            // a chunk that cannot be patched yet waits for its next load or watch
+            if (patchChunk((int) (ck >> 32), (int) ck)) {
                 stalePatchedChunks.remove(ck);
                 committedChunks.add(ck);
                 pendingChunks.remove(ck);
-            } else {
-                requeueStaleChunk(ck);
             }
         }
     }
@@ -757,6 +1301,11 @@ public abstract class FrontierChunkGenerator extends ChunkGenerator {
             return true;
         }
 
+        LevelChunk levelChunk = serverLevel.getChunkSource().getChunkNow(chunkX, chunkZ);
+        if (levelChunk == null) {
+            return false;
+        }
+
         boolean allResolved = true;
         for (BlockPos origin : List.copyOf(origins)) {
             SchematicLoader.Schematic schematic = roomOrigins.get(origin);
@@ -765,20 +1314,9 @@ public abstract class FrontierChunkGenerator extends ChunkGenerator {
                 continue;
             }
 
-            int relativeChunkX = chunkX - (origin.getX() >> 4);
-            int relativeChunkZ = chunkZ - (origin.getZ() >> 4);
-            for (ChunkBlockPlacement placement : getChunkPlacements(schematic, relativeChunkX, relativeChunkZ)) {
-                BlockPos world = origin.offset(placement.localPos());
-                if (!serverLevel.isLoaded(world)) {
-                    allResolved = false;
-                    continue;
-                }
-                serverLevel.setBlock(world, placement.state(), Block.UPDATE_CLIENTS);
-                if (placement.chest()) {
-                    scheduleChestFill(world.immutable(), 0);
-                }
-            }
+            pasteIntoChunk(levelChunk, origin, schematic);
         }
+        patchedChunks.increment();
 
         if (allResolved) {
             pendingRoomChunks.remove(key);
@@ -787,7 +1325,14 @@ public abstract class FrontierChunkGenerator extends ChunkGenerator {
     }
 
     private List<ChunkBlockPlacement> getChunkPlacements(SchematicLoader.Schematic schematic, int relativeChunkX, int relativeChunkZ) {
-        Map<Long, List<ChunkBlockPlacement>> placementsByChunk = chunkPlacementCache.computeIfAbsent(schematic, this::buildChunkPlacementCache);
+        SchematicMeta meta = metaOf(schematic);
+        Map<Long, List<ChunkBlockPlacement>> placementsByChunk = meta == null ? null : meta.chunkPlacements;
+        if (placementsByChunk == null) {
+            placementsByChunk = buildChunkPlacementCache(schematic);
+            if (meta != null) {
+                meta.chunkPlacements = placementsByChunk;
+            }
+        }
         return placementsByChunk.getOrDefault(chunkKey(relativeChunkX, relativeChunkZ), List.of());
     }
 
@@ -800,8 +1345,7 @@ public abstract class FrontierChunkGenerator extends ChunkGenerator {
             placementsByChunk.computeIfAbsent(relativeChunkKey, ignored -> new ArrayList<>()).add(
                 new ChunkBlockPlacement(
                     local.immutable(),
-                    block.getValue(),
-                    schematic.chestPositions().contains(local)
+                    block.getValue()
                 )
             );
         }
@@ -809,51 +1353,57 @@ public abstract class FrontierChunkGenerator extends ChunkGenerator {
         return placementsByChunk;
     }
 
-    private boolean isChunkNearAnyPlayer(int chunkX, int chunkZ, List<BlockPos> playerPositions) {
-        int watchRadius = serverLevel.getServer().getPlayerList().getViewDistance();
-        for (BlockPos playerPos : playerPositions) {
-            int playerChunkX = playerPos.getX() >> 4;
-            int playerChunkZ = playerPos.getZ() >> 4;
-            if (Math.abs(chunkX - playerChunkX) <= watchRadius &&
-                    Math.abs(chunkZ - playerChunkZ) <= watchRadius) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private void requeueStaleChunk(long chunkKey) {
-        if (stalePatchedChunks.contains(chunkKey) && queuedStaleChunks.add(chunkKey)) {
-            staleChunkQueue.addLast(chunkKey);
-        }
+    private void enqueueFrontier(FrontierEntry entry) {
+        BlockPos attachPoint = entry.attachPoint();
+        long key = shardKey(attachPoint.getX(), attachPoint.getZ());
+        frontierShards.computeIfAbsent(key, ignored -> new FrontierQueue<>()).enqueue(attachPoint.asLong(), entry);
     }
 
+    // round robin over regions so the bootstrap grows evenly instead of filling one region first
+    private List<FrontierEntry> pollFrontierGroup() {
+        for (int i = 0; i < frontierShards.size(); i++) {
+            Map.Entry<Long, FrontierQueue<FrontierEntry>> next = frontierShards.higherEntry(bootstrapShardCursor);
+            if (next == null) {
+                next = frontierShards.firstEntry();
+            }
+            bootstrapShardCursor = next.getKey();
 
-    private void enqueueFrontier(FrontierEntry entry) {
-        List<FrontierEntry> group = frontierGroups.get(entry.attachPoint());
-        if (group == null) {
-            group = new ArrayList<>();
-            frontierGroups.put(entry.attachPoint(), group);
-            frontiers.addLast(entry);
+            FrontierQueue.Group<FrontierEntry> group = next.getValue().poll();
+            if (group != null) {
+                return group.entries();
+            }
         }
-        group.add(entry);
+        return null;
     }
 
-    private void enqueueFrontiers(Collection<FrontierEntry> entries) {
-        for (FrontierEntry entry : entries) {
-            enqueueFrontier(entry);
+    // an unclaimed frontier entry close enough to the position that expansion around it can still
+    // reach it; without one, nothing will ever be planned there
+    public boolean hasOpenFrontierNear(BlockPos pos) {
+        List<BlockPos> around = List.of(pos);
+        int minShardX = Math.floorDiv(pos.getX() - planningRadius, SHARD_SIZE);
+        int maxShardX = Math.floorDiv(pos.getX() + planningRadius, SHARD_SIZE);
+        int minShardZ = Math.floorDiv(pos.getZ() - planningRadius, SHARD_SIZE);
+        int maxShardZ = Math.floorDiv(pos.getZ() + planningRadius, SHARD_SIZE);
+        for (int shardX = minShardX; shardX <= maxShardX; shardX++) {
+            for (int shardZ = minShardZ; shardZ <= maxShardZ; shardZ++) {
+                FrontierQueue<FrontierEntry> shard = frontierShards.get(chunkKey(shardX, shardZ));
+                if (shard == null) continue;
+
+                boolean open = shard.anyMatch(entry -> !claimed.contains(entry.attachPoint()) && isInRange(entry.attachPoint(), around));
+                if (open) {
+                    return true;
+                }
+            }
         }
+        return false;
     }
 
-    private List<FrontierEntry> pollFrontierGroup() {
-        while (!frontiers.isEmpty()) {
-            FrontierEntry representative = frontiers.pollFirst();
-            List<FrontierEntry> group = frontierGroups.remove(representative.attachPoint());
-            if (group != null && !group.isEmpty()) {
-                return group;
-            }
+    public int frontierSize() {
+        int size = 0;
+        for (FrontierQueue<FrontierEntry> shard : frontierShards.values()) {
+            size += shard.size();
         }
-        return null;
+        return size;
     }
 
     private FrontierEntry chooseCompetingFrontier(List<FrontierEntry> competingEntries) {
@@ -876,88 +1426,107 @@ public abstract class FrontierChunkGenerator extends ChunkGenerator {
 
     // main driver for choosing and placing the room
     private void expandFrontier(FrontierEntry entry) {
-
-        long key = connectionShapeSignature(entry.incomingFacing().getOpposite(), entry.width(), entry.height());
-        List<SchematicLoader.Schematic> candidates = candidateIndex.getOrDefault(key, List.of());
-
-        if (candidates.isEmpty()) {
+        PlacementOption chosen = evaluateFrontier(entry, roomOrigins.size() < minRooms);
+        if (chosen == null) {
             claimed.add(entry.attachPoint());
             return;
         }
 
+        placeCandidate(entry, chosen.candidate(), chosen.origin());
+    }
+
+    // read-only candidate search, safe to run on the expansion pool while the server thread waits;
+    // works on thread-local scratch so only the chosen placement is allocated
+    private PlacementOption evaluateFrontier(FrontierEntry entry, boolean needsConnections) {
+
+        Direction requiredFacing = entry.incomingFacing().getOpposite();
+        long key = connectionShapeSignature(requiredFacing, entry.width(), entry.height());
+        SchematicMeta[] candidates = candidateIndex.get(key);
+
+        if (candidates == null || candidates.length == 0) {
+            return null;
+        }
+
+        BlockPos attachPoint = entry.attachPoint();
         long hash = worldSeed;
-        hash ^= (long) entry.attachPoint().getX() * 0x9E3779B97F4A7C15L;
-        hash ^= (long) entry.attachPoint().getY() * 0x6C62272E07BB0142L;
-        hash ^= (long) entry.attachPoint().getZ() * 0xD2A98B26625EEE7BL;
+        hash ^= (long) attachPoint.getX() * 0x9E3779B97F4A7C15L;
+        hash ^= (long) attachPoint.getY() * 0x6C62272E07BB0142L;
+        hash ^= (long) attachPoint.getZ() * 0xD2A98B26625EEE7BL;
         hash  = Long.rotateLeft(hash, 31) * 0x94D049BB133111EBL;
 
-        boolean needsConnections = roomOrigins.size() < minRooms;
-        Map<SchematicLoader.Schematic, List<PlacementOption>> validPlacements = new LinkedHashMap<>();
+        SchematicMeta source = metaOf(roomOrigins.get(entry.sourceRoomOrigin()));
+        EvaluationScratch scratch = EVALUATION_SCRATCH.get();
+        scratch.reset();
 
-        for (SchematicLoader.Schematic candidate : candidates) {
+        for (SchematicMeta candidate : candidates) {
 
-            if (!canConnectItself(entry, candidate)) {
+            if (!canConnectItself(entry, source, candidate)) {
                 continue;
             }
 
-            if (!getLevelsForSchematic(candidate).contains(entry.level())) {
+            if (!candidate.hasLevel(entry.level())) {
                 continue;
             }
 
-            List<SchematicLoader.ConnectionPoint> matches = getMatchingConnectionPoints(candidate, entry);
-            if (matches == null) continue;
+            boolean literalMatch = requiresLiteralMatch(source, candidate);
+            int[] extents = candidate.extents;
+            int firstOrigin = scratch.originCount;
+
+            for (SchematicLoader.ConnectionPoint connectionPoint : candidate.connectionPoints) {
+                if (!connectionMatches(entry, requiredFacing, connectionPoint, literalMatch)) continue;
 
-            for (SchematicLoader.ConnectionPoint matchingConnectionPoint : matches) {
-                BlockPos candidateOrigin = entry.attachPoint().subtract(matchingConnectionPoint.corner());
+                BlockPos corner = connectionPoint.corner();
+                int originX = attachPoint.getX() - corner.getX();
+                int originY = attachPoint.getY() - corner.getY();
+                int originZ = attachPoint.getZ() - corner.getZ();
 
-                int[] extents = getExtents(candidate);
-                if (candidateOrigin.getY() < dimensionMinGenerationY || candidateOrigin.getY() + extents[1] > dimensionMaxGenerationY + 1) continue;
+                if (originY < dimensionMinGenerationY || originY + extents[1] > dimensionMaxGenerationY + 1) continue;
 
-                if (overlapsAny(candidate, candidateOrigin)) continue;
+                if (spatialIndex.overlapsAny(originX, originY, originZ, extents)) continue;
 
-                int newConnections = countNewConnections(candidate, candidateOrigin);
-                if (needsConnections && newConnections == 0) continue;
+                if (needsConnections && countNewConnections(candidate, originX, originY, originZ, scratch.probe) == 0) continue;
 
-                validPlacements.computeIfAbsent(candidate, ignored -> new ArrayList<>())
-                        .add(new PlacementOption(candidate, candidateOrigin));
+                scratch.addOrigin(BlockPos.asLong(originX, originY, originZ));
+            }
+
+            if (scratch.originCount > firstOrigin) {
+                scratch.addCandidate(candidate, firstOrigin, scratch.originCount - firstOrigin);
             }
         }
 
-        if (validPlacements.isEmpty()) {
-            claimed.add(entry.attachPoint());
-            return;
+        if (scratch.candidateCount == 0) {
+            return null;
         }
 
         hash = Long.rotateLeft(hash, 17) * 0x94D049BB133111EBL;
-        SchematicLoader.Schematic selected = selectWeightedSchematic(validPlacements.keySet(), hash);
-        List<PlacementOption> options = validPlacements.get(selected);
+        int selected = selectWeightedCandidate(scratch, hash);
 
         hash = Long.rotateLeft(hash, 17) * 0x94D049BB133111EBL;
-        PlacementOption chosen = options.get((int) Long.remainderUnsigned(hash, options.size()));
-        placeCandidate(entry, chosen.candidate(), chosen.origin());
+        int option = scratch.optionStart[selected] + (int) Long.remainderUnsigned(hash, scratch.optionCount[selected]);
+        return new PlacementOption(scratch.candidates[selected].schematic, BlockPos.of(scratch.origins[option]));
     }
 
     // pick off of weight
-    private SchematicLoader.Schematic selectWeightedSchematic(Collection<SchematicLoader.Schematic> candidates, long hash) {
+    private int selectWeightedCandidate(EvaluationScratch scratch, long hash) {
         int totalWeight = 0;
-        for (SchematicLoader.Schematic candidate : candidates) {
-            totalWeight += getEffectiveWeight(candidate);
+        for (int i = 0; i < scratch.candidateCount; i++) {
+            totalWeight += getEffectiveWeight(scratch.candidates[i]);
         }
 
         if (totalWeight <= 0) {
-            return candidates.iterator().next();
+            return 0;
         }
 
         int roll = (int) Long.remainderUnsigned(hash, totalWeight);
         int running = 0;
-        for (SchematicLoader.Schematic candidate : candidates) {
-            running += getEffectiveWeight(candidate);
+        for (int i = 0; i < scratch.candidateCount; i++) {
+            running += getEffectiveWeight(scratch.candidates[i]);
             if (roll < running) {
-                return candidate;
+                return i;
             }
         }
 
-        return candidates.iterator().next();
+        return 0;
     }
 
     private void placeCandidate(FrontierEntry entry, SchematicLoader.Schematic candidate, BlockPos candidateOrigin) {
@@ -975,20 +1544,29 @@ public abstract class FrontierChunkGenerator extends ChunkGenerator {
         for (SchematicLoader.ConnectionPoint connectionPoint : candidate.connectionPoints()) {
             BlockPos worldCorner = candidateOrigin.offset(connectionPoint.corner());
             BlockPos attachPoint = worldCorner.relative(connectionPoint.facing(), 1);
-            for (int level : getLevelsForSchematic(candidate)) {
+            for (int level : levelsOf(candidate)) {
                 if (!claimed.contains(attachPoint)) {
-                    enqueueFrontier(new FrontierEntry(candidateOrigin, attachPoint, connectionPoint.facing(), connectionPoint.width(), connectionPoint.height(), connectionPoint.patternHash(), connectionPoint.pattern().clone(), level));
+                    enqueueFrontier(new FrontierEntry(candidateOrigin, attachPoint, connectionPoint.facing(), connectionPoint.width(), connectionPoint.height(), connectionPoint.patternHash(), connectionPoint.pattern(), level));
                 }
             }
         }
     }
 
-    private int countNewConnections(SchematicLoader.Schematic candidate, BlockPos origin) {
+    private int countNewConnections(SchematicMeta candidate, int originX, int originY, int originZ, BlockPos.MutableBlockPos probe) {
+        if (candidate == null) {
+            return 0;
+        }
+
         int count = 0;
-        for (SchematicLoader.ConnectionPoint connectionPoint : candidate.connectionPoints()) {
-            BlockPos worldCorner = origin.offset(connectionPoint.corner());
-            BlockPos attachPoint = worldCorner.relative(connectionPoint.facing(), 1);
-            if (!claimed.contains(attachPoint)) {
+        for (SchematicLoader.ConnectionPoint connectionPoint : candidate.connectionPoints) {
+            BlockPos corner = connectionPoint.corner();
+            Direction facing = connectionPoint.facing();
+            probe.set(
+                originX + corner.getX() + facing.getStepX(),
+                originY + corner.getY() + facing.getStepY(),
+                originZ + corner.getZ() + facing.getStepZ()
+            );
+            if (!claimed.contains(probe)) {
                 count++;
             }
         }
@@ -1009,47 +1587,189 @@ public abstract class FrontierChunkGenerator extends ChunkGenerator {
 
         BlockPos.MutableBlockPos mutable = new BlockPos.MutableBlockPos();
 
-
-        // solid fill debug test
-        for (int x = minX; x < maxX; x++)
-            for (int z = minZ; z < maxZ; z++)
-                for (int y = dimensionMinGenerationY; y <= dimensionMaxGenerationY; y++) {
-                    mutable.set(x, y, z);
-                    chunk.setBlockState(mutable, fillSpaceState, false);
-                }
-
         boolean[] allResolved = {true};
+        List<BlockPos> writtenOrigins = new ArrayList<>();
+        List<SchematicLoader.Schematic> writtenSchematics = new ArrayList<>();
 
+        // rooms are put into roomOrigins before they are indexed, so an indexed origin always resolves
         spatialIndex.anyRoomInChunk(minX, maxX, minZ, maxZ, origin -> {
             SchematicLoader.Schematic schematic = roomOrigins.get(origin);
             if (schematic == null) {
                 allResolved[0] = false;
                 return false;
             }
-
-            for (var block : schematic.finalBlocks().entrySet()) {
-                BlockPos world = origin.offset(block.getKey());
-                if (world.getX() < minX || world.getX() >= maxX) continue;
-                if (world.getZ() < minZ || world.getZ() >= maxZ) continue;
-                mutable.set(world);
-                chunk.setBlockState(mutable, block.getValue(), false);
-            }
+            writtenOrigins.add(origin);
+            writtenSchematics.add(schematic);
             return false;
         });
 
-        long ck = chunkKey(chunk.getPos().x, chunk.getPos().z);
-        if (allResolved[0]) {
-            committedChunks.add(ck);
-            pendingChunks.remove(ck);
-            pendingRoomChunks.remove(ck);
-            stalePatchedChunks.remove(ck);
-        } else {
-            pendingChunks.add(ck);
+        // whole sections are settled at once where possible: without a room a section is left
+        // empty or filled uniformly, with a single room it is copied from a cached template
+        LevelChunkSection[] sections = chunk.getSections();
+        boolean[] settled = new boolean[sections.length];
+        boolean anyReplaced = false;
+        boolean fillIsAir = fillSpaceState.isAir();
+        for (int i = 0; i < sections.length; i++) {
+            int sectionMinY = SectionPos.sectionToBlockCoord(chunk.getSectionYFromSectionIndex(i));
+            boolean insideFill = sectionMinY >= dimensionMinGenerationY && sectionMinY + 15 <= dimensionMaxGenerationY;
+            boolean outsideFill = sectionMinY > dimensionMaxGenerationY || sectionMinY + 15 < dimensionMinGenerationY;
+            int room = roomInSection(sectionMinY, writtenOrigins, writtenSchematics);
+
+            if (room == NO_ROOM) {
+                if (insideFill && !fillIsAir) {
+                    PalettedContainer<BlockState> states = new PalettedContainer<>(Block.BLOCK_STATE_REGISTRY, fillSpaceState, PalettedContainer.Strategy.SECTION_STATES);
+                    sections[i] = new LevelChunkSection(states, sections[i].getBiomes());
+                    anyReplaced = true;
+                }
+                settled[i] = insideFill || outsideFill || fillIsAir;
+            } else if (room >= 0 && insideFill) {
+                settled[i] = applySectionTemplate(chunk, i, writtenOrigins.get(room), writtenSchematics.get(room));
+                anyReplaced |= settled[i];
+            }
+        }
+
+        // solid fill debug test, only for the rows of sections that were not settled above
+        if (!fillIsAir) {
+            int fillMinY = Math.max(dimensionMinGenerationY, chunk.getMinBuildHeight());
+            int fillMaxY = Math.min(dimensionMaxGenerationY, chunk.getMaxBuildHeight() - 1);
+            for (int y = fillMinY; y <= fillMaxY; y++) {
+                if (settled[chunk.getSectionIndex(y)]) continue;
+                for (int x = minX; x < maxX; x++)
+                    for (int z = minZ; z < maxZ; z++) {
+                        mutable.set(x, y, z);
+                        chunk.setBlockState(mutable, fillSpaceState, false);
+                    }
+            }
+        }
+
+        for (int i = 0; i < writtenOrigins.size(); i++) {
+            BlockPos origin = writtenOrigins.get(i);
+            SchematicLoader.Schematic schematic = writtenSchematics.get(i);
+            int localMinX = minX - origin.getX();
+            int localMinZ = minZ - origin.getZ();
+
+            for (int groupX = localMinX >> 4; groupX <= (localMinX + 15) >> 4; groupX++) {
+                for (int groupZ = localMinZ >> 4; groupZ <= (localMinZ + 15) >> 4; groupZ++) {
+                    for (ChunkBlockPlacement placement : getChunkPlacements(schematic, groupX, groupZ)) {
+                        mutable.setWithOffset(origin, placement.localPos());
+                        if (mutable.getX() < minX || mutable.getX() >= maxX) continue;
+                        if (mutable.getZ() < minZ || mutable.getZ() >= maxZ) continue;
+                        if (chunk.isOutsideBuildHeight(mutable.getY()) || settled[chunk.getSectionIndex(mutable.getY())]) continue;
+                        chunk.setBlockState(mutable, placement.state(), false);
+                    }
+                }
+            }
         }
 
+        // replaced sections bypass setBlockState, which is what keeps the worldgen heightmaps current
+        if (anyReplaced) {
+            Heightmap.primeHeightmaps(chunk, EnumSet.of(Heightmap.Types.OCEAN_FLOOR_WG, Heightmap.Types.WORLD_SURFACE_WG));
+        }
+
+        generatedChunks.increment();
+        chunkTransitions.add(new ChunkTransition(chunkKey(chunk.getPos().x, chunk.getPos().z), writtenOrigins, allResolved[0]));
+
         return CompletableFuture.completedFuture(chunk);
     }
 
+    // server thread side of fillFromNoise; a room placed while its chunk was generating may
+    // be missing from what the worker wrote, so only the written origins stop being pending
+    public void applyChunkTransitions() {
+        ChunkTransition transition;
+        while ((transition = chunkTransitions.poll()) != null) {
+            long ck = transition.chunkKey();
+            Set<BlockPos> origins = pendingRoomChunks.get(ck);
+            if (origins != null) {
+                transition.writtenOrigins().forEach(origins::remove);
+                if (origins.isEmpty()) {
+                    pendingRoomChunks.remove(ck);
+                }
+            }
+
+            if (transition.allResolved() && !hasPendingRoomChunk(ck)) {
+                committedChunks.add(ck);
+                pendingChunks.remove(ck);
+                stalePatchedChunks.remove(ck);
+            } else {
+                pendingChunks.add(ck);
+                if (hasPendingRoomChunk(ck)) {
+                    markChunkStale(ck);
+                }
+            }
+        }
+    }
+
+    // index of the only room whose y range overlaps the section, or NO_ROOM / MANY_ROOMS
+    private int roomInSection(int sectionMinY, List<BlockPos> origins, List<SchematicLoader.Schematic> schematics) {
+        int found = NO_ROOM;
+        for (int i = 0; i < origins.size(); i++) {
+            int roomMinY = origins.get(i).getY();
+            int roomMaxY = roomMinY + getExtents(schematics.get(i))[1];
+            if (roomMaxY <= sectionMinY || roomMinY >= sectionMinY + 16) continue;
+            if (found != NO_ROOM) {
+                return MANY_ROOMS;
+            }
+            found = i;
+        }
+        return found;
+    }
+
+    // a section inside the fill range that overlaps exactly one room only depends on that room
+    // and where the section sits relative to it, so identical placements reuse one block template
+    private boolean applySectionTemplate(ChunkAccess chunk, int sectionIndex, BlockPos origin, SchematicLoader.Schematic schematic) {
+        SchematicMeta meta = metaOf(schematic);
+        if (meta == null) {
+            return false;
+        }
+
+        int sectionMinY = SectionPos.sectionToBlockCoord(chunk.getSectionYFromSectionIndex(sectionIndex));
+        SectionTemplateKey key = new SectionTemplateKey(
+            meta,
+            chunk.getPos().getMinBlockX() - origin.getX(),
+            sectionMinY - origin.getY(),
+            chunk.getPos().getMinBlockZ() - origin.getZ()
+        );
+
+        LevelChunkSection[] sections = chunk.getSections();
+        sections[sectionIndex] = new LevelChunkSection(sectionTemplate(key).copy(), sections[sectionIndex].getBiomes());
+        return true;
+    }
+
+    private PalettedContainer<BlockState> sectionTemplate(SectionTemplateKey key) {
+        synchronized (sectionTemplates) {
+            PalettedContainer<BlockState> template = sectionTemplates.get(key);
+            if (template != null) {
+                sectionTemplateHits.increment();
+                return template;
+            }
+        }
+
+        sectionTemplateMisses.increment();
+        PalettedContainer<BlockState> template = buildSectionTemplate(key);
+        synchronized (sectionTemplates) {
+            sectionTemplates.putIfAbsent(key, template);
+        }
+        return template;
+    }
+
+    private PalettedContainer<BlockState> buildSectionTemplate(SectionTemplateKey key) {
+        PalettedContainer<BlockState> states = new PalettedContainer<>(Block.BLOCK_STATE_REGISTRY, fillSpaceState, PalettedContainer.Strategy.SECTION_STATES);
+
+        for (int groupX = key.localX() >> 4; groupX <= (key.localX() + 15) >> 4; groupX++) {
+            for (int groupZ = key.localZ() >> 4; groupZ <= (key.localZ() + 15) >> 4; groupZ++) {
+                for (ChunkBlockPlacement placement : getChunkPlacements(key.meta().schematic, groupX, groupZ)) {
+                    BlockPos local = placement.localPos();
+                    int x = local.getX() - key.localX();
+                    int y = local.getY() - key.localY();
+                    int z = local.getZ() - key.localZ();
+                    if (x < 0 || x > 15 || y < 0 || y > 15 || z < 0 || z > 15) continue;
+                    states.set(x, y, z, placement.state());
+                }
+            }
+        }
+        return states;
+    }
+
     private void writeToWorld(BlockPos origin, SchematicLoader.Schematic schematic) {
         if (serverLevel == null) return;
 
@@ -1072,19 +1792,12 @@ public abstract class FrontierChunkGenerator extends ChunkGenerator {
         // rooms in the same chunks are not replayed, preserving player changes.
         for (int cx = minChunkX; cx <= maxChunkX; cx++) {
             for (int cz = minChunkZ; cz <= maxChunkZ; cz++) {
-                if (!serverLevel.hasChunk(cx, cz)) {
+                LevelChunk levelChunk = serverLevel.getChunkSource().getChunkNow(cx, cz);
+                if (levelChunk == null) {
                     continue;
                 }
 
-                int relativeChunkX = cx - (origin.getX() >> 4);
-                int relativeChunkZ = cz - (origin.getZ() >> 4);
-                for (ChunkBlockPlacement placement : getChunkPlacements(schematic, relativeChunkX, relativeChunkZ)) {
-                    BlockPos world = origin.offset(placement.localPos());
-                    serverLevel.setBlock(world, placement.state(), Block.UPDATE_CLIENTS);
-                    if (placement.chest()) {
-                        scheduleChestFill(world.immutable(), 0);
-                    }
-                }
+                pasteIntoChunk(levelChunk, origin, schematic);
 
                 long ck = chunkKey(cx, cz);
                 if (!hasPendingRoomChunk(ck)) {
@@ -1095,26 +1808,213 @@ public abstract class FrontierChunkGenerator extends ChunkGenerator {
         }
     }
 
-    // retry filling chest during generation in case block entity race condition
-    private void scheduleChestFill(BlockPos world, int attempt) {
-        if (attempt > 10) {
-            liminalness.LOGGER.warn("frontier generator - chest at {} failed after 10 attempts", world);
-            return;
+    // writes straight into the chunk sections instead of going through setBlock per block,
+    // then leaves the touched sections for one relight each; clients get the changes at the next flush
+    private void pasteIntoChunk(LevelChunk chunk, BlockPos origin, SchematicLoader.Schematic schematic) {
+        LevelChunkSection[] sections = chunk.getSections();
+        boolean[] touchedSections = new boolean[sections.length];
+        boolean changed = false;
+        BlockPos.MutableBlockPos world = new BlockPos.MutableBlockPos();
+        ThreadedLevelLightEngine lightEngine = serverLevel.getChunkSource().getLightEngine();
+
+        // placements are grouped on the room's own chunk grid, which only lines up with the
+        // world grid for chunk aligned origins, so up to four groups feed one world chunk
+        int chunkMinX = chunk.getPos().getMinBlockX();
+        int chunkMinZ = chunk.getPos().getMinBlockZ();
+        int localMinX = chunkMinX - origin.getX();
+        int localMinZ = chunkMinZ - origin.getZ();
+
+        for (int groupX = localMinX >> 4; groupX <= (localMinX + 15) >> 4; groupX++) {
+            for (int groupZ = localMinZ >> 4; groupZ <= (localMinZ + 15) >> 4; groupZ++) {
+                for (ChunkBlockPlacement placement : getChunkPlacements(schematic, groupX, groupZ)) {
+                    world.setWithOffset(origin, placement.localPos());
+                    int x = world.getX() - chunkMinX;
+                    int z = world.getZ() - chunkMinZ;
+                    if (x < 0 || x > 15 || z < 0 || z > 15) continue;
+                    if (chunk.isOutsideBuildHeight(world.getY())) continue;
+
+                    int sectionIndex = chunk.getSectionIndex(world.getY());
+                    if (pasteBlock(chunk, sections[sectionIndex], world, placement.state(), lightEngine)) {
+                        touchedSections[sectionIndex] = true;
+                        changed = true;
+                    }
+                }
+            }
         }
-        serverLevel.getServer().execute(() -> {
-            if (!serverLevel.isLoaded(world)) {
-                scheduleChestFill(world, attempt + 1);
-                return;
+
+        if (!changed) return;
+
+        chunk.setUnsaved(true);
+        ChunkPos chunkPos = chunk.getPos();
+        for (int i = 0; i < sections.length; i++) {
+            if (touchedSections[i]) {
+                relightSections.add(SectionPos.asLong(chunkPos.x, chunk.getSectionYFromSectionIndex(i), chunkPos.z));
             }
-            var blockEntity = serverLevel.getBlockEntity(world);
-            if (blockEntity == null) {
-                scheduleChestFill(world, attempt + 1);
-                return;
+        }
+    }
+
+    // mirrors what LevelChunk.setBlockState keeps in sync, minus the neighbour updates and the
+    // per-block light check, block light is relit per section at the flush instead
+    private boolean pasteBlock(LevelChunk chunk, LevelChunkSection section, BlockPos.MutableBlockPos world, BlockState state, ThreadedLevelLightEngine lightEngine) {
+        int x = world.getX() & 15;
+        int y = world.getY();
+        int z = world.getZ() & 15;
+        boolean wasEmpty = section.hasOnlyAir();
+        BlockState previous = section.setBlockState(x, y & 15, z, state);
+        if (previous == state) {
+            return false;
+        }
+
+        // section status goes first so the block check below sees the section's new emptiness
+        boolean isEmpty = section.hasOnlyAir();
+        if (wasEmpty != isEmpty) {
+            lightEngine.updateSectionStatus(world, isEmpty);
+        }
+
+        for (Heightmap.Types type : PASTE_HEIGHTMAPS) {
+            chunk.getOrCreateHeightmapUnprimed(type).update(x, y, z, state);
+        }
+        // sky light only changes where a column's lowest sky source moved, which a section
+        // relight cannot darken, so those few positions still get their own check
+        if (LightEngine.hasDifferentLightProperties(chunk, world, previous, state) && chunk.getSkyLightSources().update(chunk, x, y, z)) {
+            lightEngine.checkBlock(world);
+        }
+
+        dirtySections.computeIfAbsent(SectionPos.asLong(world), ignored -> new ShortOpenHashSet())
+            .add(SectionPos.sectionRelativePos(world));
+
+        if (previous.hasBlockEntity() && !previous.is(state.getBlock())) {
+            chunk.removeBlockEntity(world);
+        }
+        if (state.hasBlockEntity()) {
+            BlockEntity blockEntity = chunk.getBlockEntity(world, LevelChunk.EntityCreationType.IMMEDIATE);
+            if (blockEntity != null) {
+                blockEntity.setBlockState(state);
+                dirtyBlockEntities.add(world.immutable());
             }
-            if (!consumedChests.add(world)) {
-                return;
+        }
+        serverLevel.onBlockStateChange(world, previous, state);
+        return true;
+    }
+
+    // block light of every pasted section is dropped and rebuilt from the sources around it, so
+    // light that new walls cut off goes dark; a source can reach one chunk over, so the loaded
+    // neighbours are relit with the chunk, each chunk once however many rooms touched it.
+    // The light engine reports changed sections to the chunk holders, which sync light on their own
+    private void relightPastedSections() {
+        if (relightSections.isEmpty()) return;
+
+        ServerChunkCache chunkSource = serverLevel.getChunkSource();
+        ThreadedLevelLightEngine lightEngine = chunkSource.getLightEngine();
+        LongSet relightChunks = new LongOpenHashSet();
+        for (long packed : relightSections) {
+            SectionPos sectionPos = SectionPos.of(packed);
+            lightEngine.queueSectionData(LightLayer.BLOCK, sectionPos, new DataLayer());
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dz = -1; dz <= 1; dz++) {
+                    relightChunks.add(ChunkPos.asLong(sectionPos.x() + dx, sectionPos.z() + dz));
+                }
+            }
+        }
+        relightSections.clear();
+
+        for (long packed : relightChunks) {
+            LevelChunk chunk = chunkSource.getChunkNow(ChunkPos.getX(packed), ChunkPos.getZ(packed));
+            if (chunk != null) {
+                lightEngine.lightChunk(chunk, false);
+            }
+        }
+    }
+
+    // one section update packet per touched section for everything written this tick
+    private void flushDirtySections() {
+        relightPastedSections();
+        if (dirtySections.isEmpty() && dirtyBlockEntities.isEmpty()) return;
+
+        ServerChunkCache chunkSource = serverLevel.getChunkSource();
+        for (var dirty : dirtySections.entrySet()) {
+            SectionPos sectionPos = SectionPos.of(dirty.getKey());
+            List<ServerPlayer> watchers = chunkSource.chunkMap.getPlayers(sectionPos.chunk(), false);
+            if (watchers.isEmpty()) continue;
+
+            LevelChunk chunk = chunkSource.getChunkNow(sectionPos.x(), sectionPos.z());
+            if (chunk == null) continue;
+
+            LevelChunkSection section = chunk.getSection(chunk.getSectionIndexFromSectionY(sectionPos.y()));
+            Packet<?> packet = new ClientboundSectionBlocksUpdatePacket(sectionPos, dirty.getValue(), section);
+            for (ServerPlayer player : watchers) {
+                player.connection.send(packet);
+            }
+        }
+        dirtySections.clear();
+
+        for (BlockPos pos : dirtyBlockEntities) {
+            BlockEntity blockEntity = serverLevel.getBlockEntity(pos);
+            if (blockEntity == null) continue;
+
+            Packet<?> packet = blockEntity.getUpdatePacket();
+            if (packet == null) continue;
+            for (ServerPlayer player : chunkSource.chunkMap.getPlayers(new ChunkPos(pos), false)) {
+                player.connection.send(packet);
+            }
+        }
+        dirtyBlockEntities.clear();
+    }
+
+    // chests are filled from the seed on first access, until then the room's schematic is the only marker
+    public void onChestAccess(BlockPos pos) {
+        if (serverLevel == null || consumedChests.contains(pos)) return;
+        if (!isChestMarker(pos)) return;
+
+        fillChestMarker(pos);
+    }
+
+    private void fillChestMarker(BlockPos pos) {
+        if (!consumedChests.add(pos.immutable())) return;
+
+        ChestLootHandler.fillChest(serverLevel, pos, worldSeed);
+    }
+
+    // hoppers, explosions and other mods never open a chest, so loaded chunks fill theirs
+    // as soon as every room over them is written; unloaded chunks wait for their next load
+    private void fillLoadedChests() {
+        Iterator<Long> iterator = loadedChestChunks.iterator();
+        while (iterator.hasNext()) {
+            long ck = iterator.next();
+            int chunkX = (int) (ck >> 32);
+            int chunkZ = (int) ck;
+            if (serverLevel.getChunkSource().getChunkNow(chunkX, chunkZ) == null) {
+                iterator.remove();
+                continue;
             }
-            ChestLootHandler.fillChest(serverLevel, world, worldSeed);
+            if (hasPendingRoomChunk(ck)) continue;
+
+            iterator.remove();
+            fillChestsInChunk(chunkX, chunkZ);
+        }
+    }
+
+    private void fillChestsInChunk(int chunkX, int chunkZ) {
+        int minX = chunkX << 4;
+        int minZ = chunkZ << 4;
+        spatialIndex.anyRoomInChunk(minX, minX + 16, minZ, minZ + 16, origin -> {
+            SchematicLoader.Schematic schematic = roomOrigins.get(origin);
+            if (schematic == null) return false;
+
+            for (BlockPos local : schematic.chestPositions()) {
+                BlockPos world = origin.offset(local);
+                if (world.getX() >> 4 != chunkX || world.getZ() >> 4 != chunkZ) continue;
+                if (consumedChests.contains(world)) continue;
+                fillChestMarker(world);
+            }
+            return false;
+        });
+    }
+
+    private boolean isChestMarker(BlockPos pos) {
+        return spatialIndex.anyRoomInChunk(pos.getX(), pos.getX() + 1, pos.getZ(), pos.getZ() + 1, origin -> {
+            SchematicLoader.Schematic schematic = roomOrigins.get(origin);
+            return schematic != null && schematic.chestPositions().contains(pos.subtract(origin));
         });
     }
 
@@ -1133,11 +2033,6 @@ public abstract class FrontierChunkGenerator extends ChunkGenerator {
             liminalness.LOGGER.debug("frontier generator - register structure portal at {}", local);
             structurePortalPositions.add(origin.offset(local));
         }
-        for (BlockPos local : schematic.chestPositions()) {
-            liminalness.LOGGER.debug("frontier generator - register chest at {}", local);
-            chestPositions.add(origin.offset(local));
-        }
-
     }
 
     // fill block entities from schematics
@@ -1174,89 +2069,70 @@ public abstract class FrontierChunkGenerator extends ChunkGenerator {
     // --- schematic property restrictions ---
 
     // whether can connect itself from config
-    private boolean canConnectItself(FrontierEntry entry, SchematicLoader.Schematic candidate) {
+    private boolean canConnectItself(FrontierEntry entry, SchematicMeta source, SchematicMeta candidate) {
 
-        SchematicLoader.Schematic source = roomOrigins.get(entry.sourceRoomOrigin());
         if (source == null) {
             return true;
         }
 
-        String sourceFamily = schematicFamilies.get(source);
-        String candidateFamily = schematicFamilies.get(candidate);
-        if (sourceFamily == null || !sourceFamily.equals(candidateFamily)) {
+        if (!source.family.equals(candidate.family)) {
             return true;
         }
 
         return entry.incomingFacing().getAxis() == Direction.Axis.Y
-            ? familyCanConnectItselfVertically.getOrDefault(sourceFamily, true)
-            : familyCanConnectItselfHorizontally.getOrDefault(sourceFamily, true);
+            ? familyCanConnectItselfVertically.getOrDefault(source.family, true)
+            : familyCanConnectItselfHorizontally.getOrDefault(source.family, true);
     }
 
     // schematic level property
-    private Set<Integer> getLevelsForSchematic(SchematicLoader.Schematic schematic) {
-        return schematicLevels.getOrDefault(schematic, Set.of(1));
+    private int[] levelsOf(SchematicLoader.Schematic schematic) {
+        SchematicMeta meta = metaOf(schematic);
+        return meta == null ? DEFAULT_LEVELS : meta.levels;
     }
 
-    // filter a rooms connections points down to those compatible with frontier
-    private List<SchematicLoader.ConnectionPoint> getMatchingConnectionPoints(SchematicLoader.Schematic candidate, FrontierEntry entry) {
-        List<SchematicLoader.ConnectionPoint> matches = new ArrayList<>();
-        Direction requiredFacing = entry.incomingFacing().getOpposite();
-
-        for (SchematicLoader.ConnectionPoint connectionPoint : candidate.connectionPoints()) {
-            if (connectionPoint.facing() != requiredFacing) {
-                continue;
-            }
-            if (connectionPoint.width() != entry.width() || connectionPoint.height() != entry.height()) {
-                continue;
-            }
-            if (!patternsMatch(entry, candidate, connectionPoint)) {
-                continue;
-            }
-            matches.add(connectionPoint);
+    // whether a rooms connection point is compatible with the frontier
+    private boolean connectionMatches(FrontierEntry entry, Direction requiredFacing, SchematicLoader.ConnectionPoint connectionPoint, boolean literalMatch) {
+        if (connectionPoint.facing() != requiredFacing) {
+            return false;
         }
-
-        return matches.isEmpty() ? null : matches;
-    }
-
-    private boolean patternsMatch(FrontierEntry entry, SchematicLoader.Schematic candidate, SchematicLoader.ConnectionPoint connectionPoint) {
-        if (!requiresLiteralMatch(entry.sourceRoomOrigin(), candidate)) {
+        if (connectionPoint.width() != entry.width() || connectionPoint.height() != entry.height()) {
+            return false;
+        }
+        if (!literalMatch) {
             return connectionPoint.patternHash() == entry.patternHash();
         }
-
-        int[] expectedPattern = literalMatchPattern(entry.incomingFacing(), entry.width(), entry.height(), entry.pattern());
-        return Arrays.equals(connectionPoint.pattern(), expectedPattern);
+        return literalPatternMatches(entry.incomingFacing(), entry.width(), entry.height(), entry.pattern(), connectionPoint.pattern());
     }
 
     // canonical match if opposite facing placed in real world
-    private boolean requiresLiteralMatch(BlockPos sourceRoomOrigin, SchematicLoader.Schematic candidate) {
-        SchematicLoader.Schematic source = roomOrigins.get(sourceRoomOrigin);
-        boolean sourceLiteralMatch = source != null && schematicLiteralMatches.getOrDefault(source, true);
-        boolean candidateLiteralMatch = schematicLiteralMatches.getOrDefault(candidate, true);
-        return sourceLiteralMatch || candidateLiteralMatch;
+    private boolean requiresLiteralMatch(SchematicMeta source, SchematicMeta candidate) {
+        return (source != null && source.literalMatch) || candidate.literalMatch;
     }
 
-    // connection plane transformtion for literal match test
-    private int[] literalMatchPattern(Direction facing, int width, int height, int[] pattern) {
+    // connection plane comparison against the horizontally mirrored pattern, without building it
+    private boolean literalPatternMatches(Direction facing, int width, int height, int[] pattern, int[] candidatePattern) {
         if (facing.getAxis() == Direction.Axis.Y) {
-            return pattern.clone();
+            return Arrays.equals(candidatePattern, pattern);
+        }
+
+        if (candidatePattern.length != pattern.length) {
+            return false;
         }
 
-        int[] transformed = new int[pattern.length];
         for (int y = 0; y < height; y++) {
             for (int x = 0; x < width; x++) {
-                transformed[y * width + (width - 1 - x)] = pattern[y * width + x];
+                if (candidatePattern[y * width + (width - 1 - x)] != pattern[y * width + x]) {
+                    return false;
+                }
             }
         }
-        return transformed;
+        return true;
     }
 
     // calculate penalize schematic weight
-    private int getEffectiveWeight(SchematicLoader.Schematic schematic) {
-        int baseWeight = schematicWeights.getOrDefault(schematic, 1);
-        String family = schematicFamilies.get(schematic);
-        if (family == null) {
-            return baseWeight;
-        }
+    private int getEffectiveWeight(SchematicMeta candidate) {
+        int baseWeight = candidate.weight;
+        String family = candidate.family;
 
         int penalty = familyWeightPenalty.getOrDefault(family, 0);
         if (penalty <= 0) {
@@ -1269,11 +2145,13 @@ public abstract class FrontierChunkGenerator extends ChunkGenerator {
 
     // record placed family into history record
     private void recordPlacedFamily(SchematicLoader.Schematic schematic) {
-        String family = schematicFamilies.get(schematic);
-        if (family == null) {
+        SchematicMeta meta = metaOf(schematic);
+        if (meta == null) {
             return;
         }
 
+        String family = meta.family;
+
         recentPlacedFamilies.addLast(family);
         recentFamilyCounts.merge(family, 1, Integer::sum);
 
@@ -1291,19 +2169,29 @@ public abstract class FrontierChunkGenerator extends ChunkGenerator {
     // --- utils ---
 
     private boolean overlapsAny(SchematicLoader.Schematic candidate, BlockPos origin) {
-        return spatialIndex.overlapsAny(origin, getExtents(candidate));
+        return spatialIndex.overlapsAny(origin.getX(), origin.getY(), origin.getZ(), getExtents(candidate));
+    }
+
+    // disconnected placement only depends on the candidate's size, not its contents
+    private static long extentsKey(int[] extents) {
+        return ((long) extents[0] << 42) | ((long) extents[1] << 21) | extents[2];
+    }
+
+    private SchematicMeta metaOf(SchematicLoader.Schematic s) {
+        return s == null ? null : schematicMeta.get(s);
     }
 
     public int[] getExtents(SchematicLoader.Schematic s) {
-        return extentsCache.computeIfAbsent(s, sch -> new int[]{
-                sch.extentX(),
-                sch.extentY(),
-                sch.extentZ()
-        });
+        SchematicMeta meta = schematicMeta.get(s);
+        if (meta != null) {
+            return meta.extents;
+        }
+        return new int[]{s.extentX(), s.extentY(), s.extentZ()};
     }
 
     public String getPathBySchematic(SchematicLoader.Schematic s) {
-        return schematicPaths.getOrDefault(s, "unknown");
+        SchematicMeta meta = metaOf(s);
+        return meta == null ? "unknown" : meta.path;
     }
 
     public SchematicLoader.Schematic getSchematicByPath(String path) {
@@ -1352,10 +2240,69 @@ public abstract class FrontierChunkGenerator extends ChunkGenerator {
     }
 
     // player range detection
+    // plan rooms before the chunks they cover are generated: each player counts at their
+    // position and where they will be shortly, and the range reaches past the view distance
+    private List<BlockPos> planningPositions() {
+        int viewDistance = serverLevel.getServer().getPlayerList().getViewDistance();
+        planningRadius = Math.max(radiusHorizontal, (viewDistance + 2) * 16);
+
+        long now = serverLevel.getGameTime();
+        List<ServerPlayer> players = serverLevel.players();
+        List<BlockPos> positions = new ArrayList<>();
+        for (ServerPlayer player : players) {
+            BlockPos current = player.blockPosition();
+            positions.add(current);
+
+            MotionSample motion = sampleMotion(player, now);
+            int aheadX = (int) Math.round(motion.velocityX() * PLANNING_LOOKAHEAD_TICKS);
+            int aheadZ = (int) Math.round(motion.velocityZ() * PLANNING_LOOKAHEAD_TICKS);
+            if (Math.abs(aheadX) >= 16 || Math.abs(aheadZ) >= 16) {
+                positions.add(current.offset(aheadX, 0, aheadZ));
+            }
+        }
+        if (playerMotion.size() > players.size()) {
+            playerMotion.keySet().removeIf(id -> serverLevel.getPlayerByUUID(id) == null);
+        }
+        positions.addAll(planningAnchors);
+        return positions;
+    }
+
+    // position change over the last window, the velocity is kept until the next window closes
+    private MotionSample sampleMotion(ServerPlayer player, long now) {
+        MotionSample previous = playerMotion.get(player.getUUID());
+        if (previous != null && now - previous.gameTime() < MOTION_SAMPLE_TICKS) {
+            return previous;
+        }
+
+        double velocityX = 0;
+        double velocityZ = 0;
+        if (previous != null && now - previous.gameTime() <= MOTION_SAMPLE_MAX_GAP) {
+            long elapsed = now - previous.gameTime();
+            velocityX = (player.getX() - previous.x()) / elapsed;
+            velocityZ = (player.getZ() - previous.z()) / elapsed;
+            if (velocityX * velocityX + velocityZ * velocityZ > MOTION_MAX_BLOCKS_PER_TICK * MOTION_MAX_BLOCKS_PER_TICK) {
+                velocityX = 0;
+                velocityZ = 0;
+            }
+        }
+
+        MotionSample sample = new MotionSample(player.getX(), player.getZ(), now, velocityX, velocityZ);
+        playerMotion.put(player.getUUID(), sample);
+        return sample;
+    }
+
+    public void addPlanningAnchor(BlockPos pos) {
+        planningAnchors.add(pos.immutable());
+    }
+
+    public void removePlanningAnchor(BlockPos pos) {
+        planningAnchors.remove(pos);
+    }
+
     private boolean isInRange(BlockPos pos, List<BlockPos> players) {
         for (BlockPos player : players) {
-            if (Math.abs(pos.getX() - player.getX()) <= radiusHorizontal &&
-                    Math.abs(pos.getZ() - player.getZ()) <= radiusHorizontal &&
+            if (Math.abs(pos.getX() - player.getX()) <= planningRadius &&
+                    Math.abs(pos.getZ() - player.getZ()) <= planningRadius &&
                     Math.abs(pos.getY() - player.getY()) <= radiusVertical)
             {
                 return true;
@@ -1429,20 +2376,74 @@ public abstract class FrontierChunkGenerator extends ChunkGenerator {
     @Override
     public int getBaseHeight(int x, int z, Heightmap.Types t,
                              LevelHeightAccessor l, RandomState rs) {
-        return playerSpawnGenerationY;
+        ColumnScratch rooms = roomsInColumn(x, z);
+
+        // start above whatever occupies the column and walk down to the first block the heightmap counts
+        int top = fillSpaceState.isAir() ? l.getMinBuildHeight() : dimensionMaxGenerationY + 1;
+        for (int i = 0; i < rooms.count; i++) {
+            top = Math.max(top, rooms.origins[i].getY() + rooms.metas[i].extents[1]);
+        }
+
+        Predicate<BlockState> counts = t.isOpaque();
+        for (int y = Math.min(top, l.getMaxBuildHeight()) - 1; y >= l.getMinBuildHeight(); y--) {
+            if (counts.test(columnStateAt(x, y, z, rooms))) {
+                return y + 1;
+            }
+        }
+        return l.getMinBuildHeight();
     }
 
     @Override
     public NoiseColumn getBaseColumn(int x, int z,
                                      LevelHeightAccessor l, RandomState rs) {
-        return new NoiseColumn(0, new BlockState[0]);
+        ColumnScratch rooms = roomsInColumn(x, z);
+        int minY = l.getMinBuildHeight();
+        BlockState[] states = new BlockState[l.getHeight()];
+        for (int i = 0; i < states.length; i++) {
+            states[i] = columnStateAt(x, minY + i, z, rooms);
+        }
+        return new NoiseColumn(minY, states);
+    }
+
+    // thread-local, valid until the next probe on the same thread
+    private ColumnScratch roomsInColumn(int x, int z) {
+        ColumnScratch rooms = COLUMN_SCRATCH.get();
+        rooms.reset(this);
+        spatialIndex.forEachRoomInColumn(x, z, rooms, ColumnScratch::add);
+        rooms.generator = null;
+        return rooms;
+    }
+
+    private BlockState columnStateAt(int x, int y, int z, ColumnScratch rooms) {
+        for (int i = 0; i < rooms.count; i++) {
+            BlockPos origin = rooms.origins[i];
+            SchematicMeta meta = rooms.metas[i];
+
+            int localY = y - origin.getY();
+            if (localY < 0 || localY >= meta.extents[1]) continue;
+
+            BlockState state = meta.columnState(x - origin.getX(), localY, z - origin.getZ());
+            if (state != null) {
+                return state;
+            }
+        }
+
+        if (y >= dimensionMinGenerationY && y <= dimensionMaxGenerationY) {
+            return fillSpaceState;
+        }
+        return Blocks.AIR.defaultBlockState();
     }
 
     @Override
     public void addDebugScreenInfo(List<String> info, RandomState rs, BlockPos pos) {
         info.add("dimension: " + getDimensionId());
         info.add("rooms: " + roomOrigins.size());
-        info.add("frontier: " + frontiers.size());
+        info.add("frontier: " + frontierSize() + " in " + frontierShards.size() + " regions");
+        info.add("tick: " + lastTickRooms + " rooms of " + lastTickBudget + " steps in " + lastTickNanos / 1000 + " us");
+        info.add("patched chunks: " + patchedChunks.sum() + " / " + generatedChunks.sum() + " generated");
+        long templateHits = sectionTemplateHits.sum();
+        long templateLookups = templateHits + sectionTemplateMisses.sum();
+        info.add("section templates: " + (templateLookups == 0 ? 0 : templateHits * 100 / templateLookups) + "% hit of " + templateLookups);
     }
 
 }
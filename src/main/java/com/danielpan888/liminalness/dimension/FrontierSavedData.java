@@ -139,6 +139,7 @@ public class FrontierSavedData extends SavedData {
         structurePortalPositions.clear();
         consumedChests.clear();
         committed.clear();
+        gen.applyChunkTransitions();
 
         for (var entry : gen.roomOrigins.entrySet()) {
             rooms.add(new RoomRecord(
@@ -3,8 +3,8 @@ package com.danielpan888.liminalness.dimension.bedlinkage;
 import com.danielpan888.liminalness.Config;
 import com.danielpan888.liminalness.dimension.DimensionManager;
 import com.danielpan888.liminalness.dimension.FrontierChunkGenerator;
+import com.danielpan888.liminalness.dimension.warmup.WarmupHandler;
 import net.minecraft.core.BlockPos;
-import net.minecraft.core.Direction;
 import net.minecraft.core.registries.Registries;
 import net.minecraft.resources.ResourceKey;
 import net.minecraft.resources.ResourceLocation;
@@ -17,14 +17,7 @@ import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.chunk.ChunkGenerator;
 import net.minecraft.world.phys.Vec3;
 
-import java.util.ArrayDeque;
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashSet;
-import java.util.List;
 import java.util.Optional;
-import java.util.Queue;
-import java.util.Set;
 
 public final class BedLinkHandler {
 
@@ -48,17 +41,17 @@ public final class BedLinkHandler {
             return Optional.empty();
         }
 
-        List<ResourceLocation> availableDimensions = getAvailableManagedDimensions(server);
-        if (availableDimensions.isEmpty()) {
+        ResourceLocation[] availableDimensions = DimensionManager.getManagedDimensions().loaded();
+        if (availableDimensions.length == 0) {
             return Optional.empty();
         }
 
         long worldSeed = server.getWorldData().worldGenOptions().seed();
         ResourceLocation sourceDimension = sourceLevel.dimension().location();
         long selectionHash = mixBedHash(worldSeed, sourceDimension, bedPos, null);
-        ResourceLocation targetDimension = availableDimensions.get(
-                (int) Long.remainderUnsigned(selectionHash, availableDimensions.size())
-        );
+        ResourceLocation targetDimension = availableDimensions[
+                (int) Long.remainderUnsigned(selectionHash, availableDimensions.length)
+        ];
 
         ServerLevel targetLevel = server.getLevel(ResourceKey.create(Registries.DIMENSION, targetDimension));
         if (targetLevel == null) {
@@ -85,78 +78,19 @@ public final class BedLinkHandler {
         }
 
         Vec3 spawnPos = generator.ensureLinkedSpawn(startCenterX, startCenterZ);
+        WarmupHandler.warm(targetLevel, generator, spawnPos);
 
         return Optional.of(new BedLinkDestination(targetLevel, spawnPos));
     }
 
+    // a bed only links when neither sky nor block light reaches it
     public static boolean canTriggerTeleport(ServerLevel level, BlockPos bedPos) {
 
         BlockState state = level.getBlockState(bedPos);
         if (!(state.getBlock() instanceof BedBlock)) {
             return false;
         }
-        if (level.getBrightness(LightLayer.SKY, bedPos) > 0) {
-            return false;
-        }
-
-        // darkness max radius check
-        int radius = 5;
-        Queue<BlockPos> queue = new ArrayDeque<>();
-        Set<BlockPos> visited = new HashSet<>();
-
-        queue.add(bedPos);
-        visited.add(bedPos);
-
-        while (!queue.isEmpty()) {
-
-            BlockPos current = queue.poll();
-            BlockState currentState = level.getBlockState(current);
-
-            if (!currentState.isAir()) {
-                if (level.getBrightness(LightLayer.BLOCK, current) > 0) {
-                    return false;
-                }
-                continue;
-            }
-
-            for (Direction direction : Direction.values()) {
-                BlockPos neighbor = current.relative(direction);
-                if (visited.contains(neighbor)) {
-                    continue;
-                }
-                if (Math.abs(neighbor.getX() - bedPos.getX()) > radius) {
-                    continue;
-                }
-                if (Math.abs(neighbor.getY() - bedPos.getY()) > radius) {
-                    continue;
-                }
-                if (Math.abs(neighbor.getZ() - bedPos.getZ()) > radius) {
-                    continue;
-                }
-
-                visited.add(neighbor);
-                queue.add(neighbor);
-            }
-
-        }
-
-        return true;
-    }
-
-    private static List<ResourceLocation> getAvailableManagedDimensions(MinecraftServer server) {
-
-        List<ResourceLocation> dimensions = new ArrayList<>();
-
-        for (ResourceLocation dimensionId : DimensionManager.getRegisteredIds()) {
-            ServerLevel level = server.getLevel(ResourceKey.create(Registries.DIMENSION, dimensionId));
-            if (level != null) {
-                dimensions.add(dimensionId);
-            }
-        }
-
-        dimensions.sort(Comparator.comparing(ResourceLocation::toString));
-        return dimensions;
-
+        return level.getBrightness(LightLayer.SKY, bedPos) == 0 && level.getBrightness(LightLayer.BLOCK, bedPos) == 0;
     }
 
     private static FrontierChunkGenerator resolveGenerator(ServerLevel level, ResourceLocation dimensionId) {
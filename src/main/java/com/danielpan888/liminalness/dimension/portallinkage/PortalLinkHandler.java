@@ -2,6 +2,7 @@ package com.danielpan888.liminalness.dimension.portallinkage;
 
 import com.danielpan888.liminalness.dimension.DimensionManager;
 import com.danielpan888.liminalness.dimension.FrontierChunkGenerator;
+import com.danielpan888.liminalness.dimension.warmup.WarmupHandler;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.registries.Registries;
 import net.minecraft.resources.ResourceKey;
@@ -13,9 +14,7 @@ import net.minecraft.world.level.Level;
 import net.minecraft.world.level.chunk.ChunkGenerator;
 import net.minecraft.world.phys.Vec3;
 
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
+import java.util.Arrays;
 import java.util.Optional;
 
 public final class PortalLinkHandler {
@@ -42,7 +41,8 @@ public final class PortalLinkHandler {
         ServerLevel level,
         Vec3 position,
         float yRot,
-        float xRot
+        float xRot,
+        boolean returnPoint
     ) {}
 
     private static final long MIX_CONSTANT = 0x94D049BB133111EBL;
@@ -75,20 +75,36 @@ public final class PortalLinkHandler {
         }
 
         PortalLinkSavedData data = PortalLinkSavedData.get(server);
-        PortalKey key = new PortalKey(fromDimension, portalPos.immutable());
-
-        PortalLink link = data.getLink(key);
+        PortalLink link = getOrCreateLink(player, data, fromDimension, portalPos);
         if (link == null) {
-            link = createLink(player, fromDimension, portalPos);
-            if (link == null) {
-                return Optional.empty();
-            }
-            data.putLink(key, link);
+            return Optional.empty();
         }
 
         return Optional.of(resolveTarget(server, player, link, data));
     }
 
+    // warms the target of a portal a player is approaching, links are only ever created by using the portal
+    public static void prewarm(ServerPlayer player, ResourceLocation fromDimension, BlockPos portalPos) {
+        MinecraftServer server = player.getServer();
+        if (server == null) {
+            return;
+        }
+
+        PortalLink link = PortalLinkSavedData.get(server).getLink(new PortalKey(fromDimension, portalPos));
+        if (link == null || link.returnOrigin()) {
+            return;
+        }
+
+        ServerLevel targetLevel = server.getLevel(ResourceKey.create(Registries.DIMENSION, link.targetDimensionId()));
+        FrontierChunkGenerator generator = resolveManagedGenerator(server, link.targetDimensionId());
+        if (targetLevel == null || generator == null || !generator.isReady()) {
+            return;
+        }
+
+        // the spawn room is built on first use, until then the link center stands in for it
+        WarmupHandler.warm(targetLevel, generator, new Vec3(link.targetCenterX() + 0.5, generator.playerSpawnGenerationY, link.targetCenterZ() + 0.5));
+    }
+
     public static Optional<PortalTeleportTarget> resolveDirectReturn(ServerPlayer player) {
         MinecraftServer server = player.getServer();
         if (server == null) {
@@ -99,6 +115,20 @@ public final class PortalLinkHandler {
         return Optional.of(resolveReturnTarget(server, player, data));
     }
 
+    private static PortalLink getOrCreateLink(ServerPlayer player, PortalLinkSavedData data, ResourceLocation fromDimension, BlockPos portalPos) {
+        PortalKey key = new PortalKey(fromDimension, portalPos.immutable());
+
+        PortalLink link = data.getLink(key);
+        if (link == null) {
+            link = createLink(player, fromDimension, portalPos);
+            if (link == null) {
+                return null;
+            }
+            data.putLink(key, link);
+        }
+        return link;
+    }
+
     private static PortalLink createLink(ServerPlayer player, ResourceLocation fromDimension, BlockPos portalPos) {
 
         MinecraftServer server = player.getServer();
@@ -106,12 +136,19 @@ public final class PortalLinkHandler {
             return null;
         }
 
-        List<ResourceLocation> availableDimensions = getAvailableManagedDimensions(server, fromDimension);
-        if (availableDimensions.isEmpty() || player.getRandom().nextBoolean()) {
+        // the source dimension is skipped by shifting picks past its slot instead of copying the array
+        ResourceLocation[] readyDimensions = DimensionManager.getManagedDimensions().ready();
+        int excluded = Arrays.asList(readyDimensions).indexOf(fromDimension);
+        int available = readyDimensions.length - (excluded >= 0 ? 1 : 0);
+        if (available == 0 || player.getRandom().nextBoolean()) {
             return new PortalLink(true, null, 0, 0);
         }
 
-        ResourceLocation targetDimension = availableDimensions.get(player.getRandom().nextInt(availableDimensions.size()));
+        int pick = player.getRandom().nextInt(available);
+        if (excluded >= 0 && pick >= excluded) {
+            pick++;
+        }
+        ResourceLocation targetDimension = readyDimensions[pick];
         FrontierChunkGenerator generator = resolveManagedGenerator(server, targetDimension);
         if (generator == null || !generator.isReady()) {
             return new PortalLink(true, null, 0, 0);
@@ -149,16 +186,27 @@ public final class PortalLinkHandler {
                 overworld.getSharedSpawnPos().getZ() + 0.5
             );
 
-            return new PortalTeleportTarget(overworld, fallback, player.getYRot(), player.getXRot());
+            return new PortalTeleportTarget(overworld, fallback, player.getYRot(), player.getXRot(), false);
 
         }
 
         Vec3 spawnPos = generator.ensureLinkedSpawn(link.targetCenterX(), link.targetCenterZ());
-        return new PortalTeleportTarget(targetLevel, spawnPos, player.getYRot(), player.getXRot());
+        WarmupHandler.warm(targetLevel, generator, spawnPos);
+        return new PortalTeleportTarget(targetLevel, spawnPos, player.getYRot(), player.getXRot(), false);
+    }
+
+    // the return point stays saved until the teleport using it has actually moved the player
+    public static void consumeReturnPoint(ServerPlayer player) {
+        MinecraftServer server = player.getServer();
+        if (server == null) {
+            return;
+        }
+
+        PortalLinkSavedData.get(server).removeReturnPoint(player.getUUID());
     }
 
     private static PortalTeleportTarget resolveReturnTarget(MinecraftServer server, ServerPlayer player, PortalLinkSavedData data) {
-        ReturnPoint point = data.removeReturnPoint(player.getUUID());
+        ReturnPoint point = data.getReturnPoint(player.getUUID());
 
         if (point != null) {
             ServerLevel returnLevel = server.getLevel(ResourceKey.create(Registries.DIMENSION, point.dimensionId()));
@@ -167,7 +215,8 @@ public final class PortalLinkHandler {
                     returnLevel,
                     new Vec3(point.x(), point.y(), point.z()),
                     point.yRot(),
-                    point.xRot()
+                    point.xRot(),
+                    true
                 );
             }
         }
@@ -178,7 +227,7 @@ public final class PortalLinkHandler {
             overworld.getSharedSpawnPos().getY(),
             overworld.getSharedSpawnPos().getZ() + 0.5
         );
-        return new PortalTeleportTarget(overworld, fallback, player.getYRot(), player.getXRot());
+        return new PortalTeleportTarget(overworld, fallback, player.getYRot(), player.getXRot(), false);
     }
 
     private static FrontierChunkGenerator resolveManagedGenerator(MinecraftServer server, ResourceLocation dimensionId) {
@@ -200,24 +249,6 @@ public final class PortalLinkHandler {
         return generator;
     }
 
-    private static List<ResourceLocation> getAvailableManagedDimensions(MinecraftServer server, ResourceLocation fromDimension) {
-
-        List<ResourceLocation> dimensions = new ArrayList<>();
-
-        for (ResourceLocation dimensionId : DimensionManager.getRegisteredIds()) {
-            if (dimensionId.equals(fromDimension)) {
-                continue;
-            }
-
-            FrontierChunkGenerator generator = resolveManagedGenerator(server, dimensionId);
-            if (generator != null && generator.isReady()) {
-                dimensions.add(dimensionId);
-            }
-        }
-        dimensions.sort(Comparator.comparing(ResourceLocation::toString));
-        return dimensions;
-    }
-
     private static long mixPortalHash(long worldSeed, ResourceLocation fromDimension, BlockPos portalPos, ResourceLocation targetDimension) {
 
         long hash = worldSeed;
@@ -0,0 +1,76 @@
+package com.danielpan888.liminalness.dimension.portallinkage;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.HolderLookup;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.LongArrayTag;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.saveddata.SavedData;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// links of one source dimension region, saved on their own so a new link only rewrites its region
+public class PortalLinkPartition extends SavedData {
+
+    // portal pos, packed target center, then return flag in bit 0 and dictionary index + 1 above it
+    private static final int LONGS_PER_LINK = 3;
+
+    private final PortalLinkSavedData index;
+    private final Map<Long, PortalLinkHandler.PortalLink> links = new HashMap<>();
+
+    public PortalLinkPartition(PortalLinkSavedData index) {
+        this.index = index;
+    }
+
+    public static String dataName(int dimensionIndex, int regionX, int regionZ) {
+        return "liminalness_portal_links_" + dimensionIndex + "_" + regionX + "_" + regionZ;
+    }
+
+    public PortalLinkHandler.PortalLink getLink(BlockPos portalPos) {
+        return links.get(portalPos.asLong());
+    }
+
+    public void putLink(BlockPos portalPos, PortalLinkHandler.PortalLink link) {
+        links.put(portalPos.asLong(), link);
+        setDirty();
+    }
+
+    public static PortalLinkPartition fromNbt(CompoundTag tag, PortalLinkSavedData index) {
+        PortalLinkPartition partition = new PortalLinkPartition(index);
+
+        long[] packed = tag.getLongArray("links");
+        for (int i = 0; i + LONGS_PER_LINK <= packed.length; i += LONGS_PER_LINK) {
+            long center = packed[i + 1];
+            long flags = packed[i + 2];
+            int dimensionIndex = (int) (flags >>> 1) - 1;
+
+            ResourceLocation targetDimension = dimensionIndex >= 0 ? index.dimensionAt(dimensionIndex) : null;
+            partition.links.put(packed[i], new PortalLinkHandler.PortalLink(
+                (flags & 1L) != 0,
+                targetDimension,
+                (int) (center >> 32),
+                (int) center
+            ));
+        }
+
+        return partition;
+    }
+
+    @Override
+    public CompoundTag save(CompoundTag tag, HolderLookup.Provider provider) {
+        long[] packed = new long[links.size() * LONGS_PER_LINK];
+        int i = 0;
+        for (Map.Entry<Long, PortalLinkHandler.PortalLink> entry : links.entrySet()) {
+            PortalLinkHandler.PortalLink link = entry.getValue();
+            long dimensionIndex = link.targetDimensionId() != null ? index.dimensionIndex(link.targetDimensionId()) : -1;
+
+            packed[i++] = entry.getKey();
+            packed[i++] = ((long) link.targetCenterX() << 32) | (link.targetCenterZ() & 0xFFFFFFFFL);
+            packed[i++] = ((dimensionIndex + 1) << 1) | (link.returnOrigin() ? 1L : 0L);
+        }
+
+        tag.put("links", new LongArrayTag(packed));
+        return tag;
+    }
+}
@@ -1,36 +1,101 @@
 package com.danielpan888.liminalness.dimension.portallinkage;
 
+import com.danielpan888.liminalness.liminalness;
+import net.minecraft.core.BlockPos;
 import net.minecraft.core.HolderLookup;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.StringTag;
 import net.minecraft.nbt.Tag;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.level.saveddata.SavedData;
+import net.minecraft.world.level.storage.DimensionDataStorage;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
 public class PortalLinkSavedData extends SavedData {
 
     private static final String DATA_NAME = "liminalness_portal_links";
+    // 512 block regions, the same footprint as a region file
+    private static final int REGION_SHIFT = 9;
 
-    private final Map<PortalLinkHandler.PortalKey, PortalLinkHandler.PortalLink> links = new HashMap<>();
+    private record PartitionKey(int dimensionIndex, int regionX, int regionZ) {}
+
+    // links live in per region partitions, this holds return points and the dimension dictionary they share
+    private final List<ResourceLocation> dimensions = new ArrayList<>();
+    private final Map<ResourceLocation, Integer> dimensionIndices = new HashMap<>();
+    private final Map<PartitionKey, PortalLinkPartition> partitions = new HashMap<>();
     private final Map<UUID, PortalLinkHandler.ReturnPoint> returnPoints = new HashMap<>();
+    // links read from the single list format older saves used, moved into partitions on first access
+    private final Map<PortalLinkHandler.PortalKey, PortalLinkHandler.PortalLink> legacyLinks = new HashMap<>();
+    private DimensionDataStorage storage;
 
     public static PortalLinkSavedData get(MinecraftServer server) {
         ServerLevel overworld = server.overworld();
-        return overworld.getDataStorage().computeIfAbsent(new SavedData.Factory<>(PortalLinkSavedData::new, (tag, provider) -> fromNbt(tag)), DATA_NAME);
+        PortalLinkSavedData data = overworld.getDataStorage().computeIfAbsent(new SavedData.Factory<>(PortalLinkSavedData::new, (tag, provider) -> fromNbt(tag)), DATA_NAME);
+        data.storage = overworld.getDataStorage();
+        data.migrateLegacyLinks();
+        return data;
     }
 
     public PortalLinkHandler.PortalLink getLink(PortalLinkHandler.PortalKey key) {
-        return links.get(key);
+        return partition(key).getLink(key.portalPos());
     }
 
     public void putLink(PortalLinkHandler.PortalKey key, PortalLinkHandler.PortalLink link) {
-        links.put(key, link);
+        if (link.targetDimensionId() != null) {
+            dimensionIndex(link.targetDimensionId());
+        }
+        partition(key).putLink(key.portalPos(), link);
+    }
+
+    public int dimensionIndex(ResourceLocation dimensionId) {
+        Integer existing = dimensionIndices.get(dimensionId);
+        if (existing != null) {
+            return existing;
+        }
+
+        int index = dimensions.size();
+        dimensions.add(dimensionId);
+        dimensionIndices.put(dimensionId, index);
+        setDirty();
+        return index;
+    }
+
+    public ResourceLocation dimensionAt(int index) {
+        return index < dimensions.size() ? dimensions.get(index) : null;
+    }
+
+    private PortalLinkPartition partition(PortalLinkHandler.PortalKey key) {
+        BlockPos portalPos = key.portalPos();
+        PartitionKey partitionKey = new PartitionKey(
+            dimensionIndex(key.dimensionId()),
+            portalPos.getX() >> REGION_SHIFT,
+            portalPos.getZ() >> REGION_SHIFT
+        );
+
+        return partitions.computeIfAbsent(partitionKey, ignored -> storage.computeIfAbsent(
+            new SavedData.Factory<>(() -> new PortalLinkPartition(this), (tag, provider) -> PortalLinkPartition.fromNbt(tag, this)),
+            PortalLinkPartition.dataName(partitionKey.dimensionIndex(), partitionKey.regionX(), partitionKey.regionZ())
+        ));
+    }
+
+    private void migrateLegacyLinks() {
+        if (legacyLinks.isEmpty()) {
+            return;
+        }
+
+        for (Map.Entry<PortalLinkHandler.PortalKey, PortalLinkHandler.PortalLink> entry : legacyLinks.entrySet()) {
+            putLink(entry.getKey(), entry.getValue());
+        }
+        liminalness.LOGGER.info("portal links - moved {} links into region partitions", legacyLinks.size());
+        legacyLinks.clear();
         setDirty();
     }
 
@@ -49,6 +114,7 @@ public class PortalLinkSavedData extends SavedData {
     }
 
     public void putReturnPoint(UUID playerId, PortalLinkHandler.ReturnPoint point) {
+        dimensionIndex(point.dimensionId());
         returnPoints.put(playerId, point);
         setDirty();
     }
@@ -57,6 +123,13 @@ public class PortalLinkSavedData extends SavedData {
 
         PortalLinkSavedData data = new PortalLinkSavedData();
 
+        ListTag dimensionsTag = tag.getList("dimensions", Tag.TAG_STRING);
+        for (int i = 0; i < dimensionsTag.size(); i++) {
+            ResourceLocation dimensionId = ResourceLocation.parse(dimensionsTag.getString(i));
+            data.dimensionIndices.put(dimensionId, data.dimensions.size());
+            data.dimensions.add(dimensionId);
+        }
+
         ListTag linksTag = tag.getList("links", Tag.TAG_COMPOUND);
         for (int i = 0; i < linksTag.size(); i++) {
             CompoundTag entry = linksTag.getCompound(i);
@@ -65,7 +138,7 @@ public class PortalLinkSavedData extends SavedData {
 
             PortalLinkHandler.PortalKey key = new PortalLinkHandler.PortalKey(
                 sourceDimension,
-                new net.minecraft.core.BlockPos(entry.getInt("x"), entry.getInt("y"), entry.getInt("z"))
+                new BlockPos(entry.getInt("x"), entry.getInt("y"), entry.getInt("z"))
             );
 
             PortalLinkHandler.PortalLink link = new PortalLinkHandler.PortalLink(
@@ -75,7 +148,7 @@ public class PortalLinkSavedData extends SavedData {
                 entry.getInt("target_center_z")
             );
 
-            data.links.put(key, link);
+            data.legacyLinks.put(key, link);
         }
 
         ListTag returnTag = tag.getList("return_points", Tag.TAG_COMPOUND);
@@ -83,7 +156,10 @@ public class PortalLinkSavedData extends SavedData {
 
             CompoundTag entry = returnTag.getCompound(i);
             UUID playerId = entry.getUUID("player_id");
-            ResourceLocation dimensionId = ResourceLocation.parse(entry.getString("dimension"));
+            ResourceLocation dimensionId = entry.contains("dimension_index")
+                ? data.dimensionAt(entry.getInt("dimension_index"))
+                : ResourceLocation.parse(entry.getString("dimension"));
+            if (dimensionId == null) continue;
 
             PortalLinkHandler.ReturnPoint point = new PortalLinkHandler.ReturnPoint(
                 dimensionId,
@@ -101,28 +177,11 @@ public class PortalLinkSavedData extends SavedData {
 
     @Override
     public CompoundTag save(CompoundTag tag, HolderLookup.Provider provider) {
-        ListTag linksTag = new ListTag();
-        for (Map.Entry<PortalLinkHandler.PortalKey, PortalLinkHandler.PortalLink> entry : links.entrySet()) {
-            CompoundTag linkTag = new CompoundTag();
-            PortalLinkHandler.PortalKey key = entry.getKey();
-            PortalLinkHandler.PortalLink link = entry.getValue();
-
-            linkTag.putString("source_dimension", key.dimensionId().toString());
-            linkTag.putInt("x", key.portalPos().getX());
-            linkTag.putInt("y", key.portalPos().getY());
-            linkTag.putInt("z", key.portalPos().getZ());
-            linkTag.putBoolean("return_origin", link.returnOrigin());
-
-            if (link.targetDimensionId() != null) {
-                linkTag.putString("target_dimension", link.targetDimensionId().toString());
-            }
-
-            linkTag.putInt("target_center_x", link.targetCenterX());
-            linkTag.putInt("target_center_z", link.targetCenterZ());
-            linksTag.add(linkTag);
+        ListTag dimensionsTag = new ListTag();
+        for (ResourceLocation dimensionId : dimensions) {
+            dimensionsTag.add(StringTag.valueOf(dimensionId.toString()));
         }
-
-        tag.put("links", linksTag);
+        tag.put("dimensions", dimensionsTag);
 
         ListTag returnTag = new ListTag();
         for (Map.Entry<UUID, PortalLinkHandler.ReturnPoint> entry : returnPoints.entrySet()) {
@@ -130,7 +189,7 @@ public class PortalLinkSavedData extends SavedData {
             PortalLinkHandler.ReturnPoint point = entry.getValue();
 
             pointTag.putUUID("player_id", entry.getKey());
-            pointTag.putString("dimension", point.dimensionId().toString());
+            pointTag.putInt("dimension_index", dimensionIndex(point.dimensionId()));
             pointTag.putDouble("x", point.x());
             pointTag.putDouble("y", point.y());
             pointTag.putDouble("z", point.z());
@@ -0,0 +1,222 @@
+package com.danielpan888.liminalness.dimension.pregen;
+
+import com.danielpan888.liminalness.Config;
+import com.danielpan888.liminalness.dimension.FrontierChunkGenerator;
+import com.danielpan888.liminalness.liminalness;
+import net.minecraft.core.BlockPos;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerChunkCache;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.TicketType;
+import net.minecraft.world.level.ChunkPos;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+public final class PregenHandler {
+
+    private static final TicketType<ChunkPos> PREGEN_TICKET = TicketType.create("liminalness_pregen", Comparator.comparingLong(ChunkPos::toLong));
+    private static final int IN_FLIGHT_PER_TICK_BUDGET = 4;
+    private static final int REPORT_STEP_PERCENT = 5;
+    // longest a job waits on a frontier that still has open entries nearby but places nothing
+    private static final long PLANNING_WAIT_TICKS = 20L * 10;
+
+    // runtime side of a job, rebuilt from the saved prefix after a restart
+    private static final class Run {
+        private final ArrayDeque<ChunkPos> inFlight = new ArrayDeque<>();
+        private final long startedAt = System.currentTimeMillis();
+        private final long startedCompleted;
+        private long nextIndex;
+        // start of the current stall, only cleared once a planned chunk is issued again
+        private long waitingSince = -1;
+        private BlockPos anchor;
+        private int reportedPercent;
+
+        private Run(PregenJob job) {
+            this.startedCompleted = job.completed();
+            this.nextIndex = job.completed();
+            this.reportedPercent = percent(job);
+        }
+    }
+
+    private static final Map<ResourceLocation, Run> runs = new HashMap<>();
+
+    private PregenHandler() {}
+
+    public static PregenJob start(ServerLevel level, FrontierChunkGenerator generator, int centerX, int centerZ, int radius) {
+        MinecraftServer server = level.getServer();
+        ResourceLocation dimensionId = level.dimension().location();
+        stopRun(level, generator, dimensionId);
+
+        if (generator.roomOrigins.isEmpty()) {
+            generator.seedAt(centerX, centerZ);
+        }
+
+        int radiusChunks = Math.max(0, (radius + 15) >> 4);
+        PregenJob job = new PregenJob(dimensionId, centerX >> 4, centerZ >> 4, radiusChunks);
+        PregenSavedData.get(server).putJob(job);
+        liminalness.LOGGER.info("pregen - {}: started {} chunks around {}, {}", dimensionId, job.total(), centerX, centerZ);
+        return job;
+    }
+
+    public static boolean setPaused(ServerLevel level, FrontierChunkGenerator generator, boolean paused) {
+        ResourceLocation dimensionId = level.dimension().location();
+        PregenSavedData data = PregenSavedData.get(level.getServer());
+        PregenJob job = data.getJob(dimensionId);
+        if (job == null) {
+            return false;
+        }
+
+        if (paused) {
+            stopRun(level, generator, dimensionId);
+        }
+        job.setPaused(paused);
+        data.setDirty();
+        return true;
+    }
+
+    public static boolean cancel(ServerLevel level, FrontierChunkGenerator generator) {
+        ResourceLocation dimensionId = level.dimension().location();
+        stopRun(level, generator, dimensionId);
+        return PregenSavedData.get(level.getServer()).removeJob(dimensionId) != null;
+    }
+
+    public static PregenJob getJob(MinecraftServer server, ResourceLocation dimensionId) {
+        return PregenSavedData.get(server).getJob(dimensionId);
+    }
+
+    public static String describe(PregenJob job) {
+        StringBuilder description = new StringBuilder()
+            .append(job.completed()).append('/').append(job.total())
+            .append(" chunks (").append(percent(job)).append("%)");
+
+        if (job.paused()) {
+            return description.append(", paused").toString();
+        }
+
+        Run run = runs.get(job.dimensionId());
+        if (run != null) {
+            long done = job.completed() - run.startedCompleted;
+            long elapsed = System.currentTimeMillis() - run.startedAt;
+            if (done > 0 && elapsed > 0) {
+                long remainingSeconds = (job.total() - job.completed()) * elapsed / done / 1000;
+                description.append(", eta ").append(formatDuration(remainingSeconds));
+            }
+        }
+        return description.toString();
+    }
+
+    public static void tick(ServerLevel level, FrontierChunkGenerator generator) {
+        ResourceLocation dimensionId = level.dimension().location();
+        PregenSavedData data = PregenSavedData.get(level.getServer());
+        PregenJob job = data.getJob(dimensionId);
+        if (job == null || job.paused()) return;
+
+        Run run = runs.computeIfAbsent(dimensionId, ignored -> new Run(job));
+        ServerChunkCache chunkSource = level.getChunkSource();
+
+        // retire in spiral order so the saved progress is always a prefix that can be resumed;
+        // a chunk is only done once loaded with every room planned over it written
+        while (!run.inFlight.isEmpty()) {
+            ChunkPos head = run.inFlight.peekFirst();
+            if (chunkSource.getChunkNow(head.x, head.z) == null) break;
+            if (generator.hasPendingRoomChunk(FrontierChunkGenerator.chunkKey(head.x, head.z))) break;
+
+            run.inFlight.pollFirst();
+            chunkSource.removeRegionTicket(PREGEN_TICKET, head, 0, head);
+            job.setCompleted(job.completed() + 1);
+            data.setDirty();
+        }
+
+        if (job.isDone()) {
+            liminalness.LOGGER.info("pregen - {}: finished {} chunks", dimensionId, job.total());
+            stopRun(level, generator, dimensionId);
+            data.removeJob(dimensionId);
+            return;
+        }
+
+        // requests wait for the frontier to reach each chunk, so the chunk generates with its
+        // rooms instead of as fill that stale repair has to patch later; a chunk no open frontier
+        // can reach, a gap between rooms or past a dead end, goes out as fill right away, and a
+        // frontier that stalls costs the job one wait, not one per chunk
+        int perTick = Config.LIMINALNESS_PREGEN_CHUNKS_PER_TICK.get();
+        int issued = 0;
+        boolean frontierChecked = false;
+        boolean frontierOpen = false;
+        while (issued < perTick && run.inFlight.size() < perTick * IN_FLIGHT_PER_TICK_BUDGET && run.nextIndex < job.total()) {
+            ChunkPos pos = job.chunkAt(run.nextIndex);
+            if (generator.isChunkPlanned(FrontierChunkGenerator.chunkKey(pos.x, pos.z))) {
+                run.waitingSince = -1;
+            } else {
+                // the frontier only changes between ticks and the spiral stays local, so one look per tick
+                if (!frontierChecked) {
+                    frontierOpen = generator.hasOpenFrontierNear(new BlockPos(pos.getMiddleBlockX(), generator.playerSpawnGenerationY, pos.getMiddleBlockZ()));
+                    frontierChecked = true;
+                }
+                if (frontierOpen) {
+                    long now = level.getGameTime();
+                    if (run.waitingSince < 0) {
+                        run.waitingSince = now;
+                    }
+                    if (now - run.waitingSince < PLANNING_WAIT_TICKS) break;
+                }
+            }
+
+            run.nextIndex++;
+            chunkSource.addRegionTicket(PREGEN_TICKET, pos, 0, pos);
+            run.inFlight.addLast(pos);
+            issued++;
+        }
+
+        // keep the frontier planning around the chunks being requested, players or not
+        ChunkPos lead = job.chunkAt(Math.min(run.nextIndex, job.total() - 1));
+        BlockPos anchor = new BlockPos(lead.getMiddleBlockX(), generator.playerSpawnGenerationY, lead.getMiddleBlockZ());
+        if (!anchor.equals(run.anchor)) {
+            if (run.anchor != null) {
+                generator.removePlanningAnchor(run.anchor);
+            }
+            generator.addPlanningAnchor(anchor);
+            run.anchor = anchor;
+        }
+
+        int percent = percent(job);
+        if (percent >= run.reportedPercent + REPORT_STEP_PERCENT) {
+            run.reportedPercent = percent;
+            liminalness.LOGGER.info("pregen - {}: {}", dimensionId, describe(job));
+        }
+    }
+
+    public static void onServerStop() {
+        runs.clear();
+    }
+
+    private static void stopRun(ServerLevel level, FrontierChunkGenerator generator, ResourceLocation dimensionId) {
+        Run run = runs.remove(dimensionId);
+        if (run == null) return;
+
+        ServerChunkCache chunkSource = level.getChunkSource();
+        for (ChunkPos pos : run.inFlight) {
+            chunkSource.removeRegionTicket(PREGEN_TICKET, pos, 0, pos);
+        }
+        if (run.anchor != null) {
+            generator.removePlanningAnchor(run.anchor);
+        }
+    }
+
+    private static int percent(PregenJob job) {
+        return (int) (job.completed() * 100 / Math.max(1, job.total()));
+    }
+
+    private static String formatDuration(long seconds) {
+        if (seconds >= 3600) {
+            return (seconds / 3600) + "h " + (seconds % 3600 / 60) + "m";
+        }
+        if (seconds >= 60) {
+            return (seconds / 60) + "m " + (seconds % 60) + "s";
+        }
+        return seconds + "s";
+    }
+}
@@ -0,0 +1,103 @@
+package com.danielpan888.liminalness.dimension.pregen;
+
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.ChunkPos;
+
+// square spiral of chunks around a center, completed chunks are always a prefix of the spiral
+public final class PregenJob {
+
+    private final ResourceLocation dimensionId;
+    private final int centerChunkX;
+    private final int centerChunkZ;
+    private final int radiusChunks;
+    private long completed;
+    private boolean paused;
+
+    public PregenJob(ResourceLocation dimensionId, int centerChunkX, int centerChunkZ, int radiusChunks) {
+        this.dimensionId = dimensionId;
+        this.centerChunkX = centerChunkX;
+        this.centerChunkZ = centerChunkZ;
+        this.radiusChunks = radiusChunks;
+    }
+
+    public ResourceLocation dimensionId() {
+        return dimensionId;
+    }
+
+    public int radiusChunks() {
+        return radiusChunks;
+    }
+
+    public long completed() {
+        return completed;
+    }
+
+    public void setCompleted(long completed) {
+        this.completed = completed;
+    }
+
+    public boolean paused() {
+        return paused;
+    }
+
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+    }
+
+    public long total() {
+        long side = 2L * radiusChunks + 1;
+        return side * side;
+    }
+
+    public boolean isDone() {
+        return completed >= total();
+    }
+
+    // ring k holds the 8k chunks at chebyshev distance k, walked side by side
+    public ChunkPos chunkAt(long index) {
+        if (index == 0) {
+            return new ChunkPos(centerChunkX, centerChunkZ);
+        }
+
+        int ring = (int) Math.ceil((Math.sqrt(index + 1) - 1) / 2);
+        long ringStart = (2L * ring - 1) * (2L * ring - 1);
+        int position = (int) (index - ringStart);
+        int sideLength = 2 * ring;
+        int side = position / sideLength;
+        int offset = position % sideLength;
+
+        int dx;
+        int dz;
+        switch (side) {
+            case 0 -> { dx = ring; dz = -ring + 1 + offset; }
+            case 1 -> { dx = ring - 1 - offset; dz = ring; }
+            case 2 -> { dx = -ring; dz = ring - 1 - offset; }
+            default -> { dx = -ring + 1 + offset; dz = -ring; }
+        }
+        return new ChunkPos(centerChunkX + dx, centerChunkZ + dz);
+    }
+
+    public CompoundTag toNbt() {
+        CompoundTag tag = new CompoundTag();
+        tag.putString("dimension", dimensionId.toString());
+        tag.putInt("center_chunk_x", centerChunkX);
+        tag.putInt("center_chunk_z", centerChunkZ);
+        tag.putInt("radius_chunks", radiusChunks);
+        tag.putLong("completed", completed);
+        tag.putBoolean("paused", paused);
+        return tag;
+    }
+
+    public static PregenJob fromNbt(CompoundTag tag) {
+        PregenJob job = new PregenJob(
+            ResourceLocation.parse(tag.getString("dimension")),
+            tag.getInt("center_chunk_x"),
+            tag.getInt("center_chunk_z"),
+            tag.getInt("radius_chunks")
+        );
+        job.completed = tag.getLong("completed");
+        job.paused = tag.getBoolean("paused");
+        return job;
+    }
+}
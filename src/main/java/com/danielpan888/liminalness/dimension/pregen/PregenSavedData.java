@@ -0,0 +1,69 @@
+package com.danielpan888.liminalness.dimension.pregen;
+
+import net.minecraft.core.HolderLookup;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.Tag;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.saveddata.SavedData;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class PregenSavedData extends SavedData {
+
+    private static final String DATA_NAME = "liminalness_pregen_jobs";
+
+    private final Map<ResourceLocation, PregenJob> jobs = new LinkedHashMap<>();
+
+    public static PregenSavedData get(MinecraftServer server) {
+        ServerLevel overworld = server.overworld();
+        return overworld.getDataStorage().computeIfAbsent(new SavedData.Factory<>(PregenSavedData::new, (tag, provider) -> fromNbt(tag)), DATA_NAME);
+    }
+
+    public PregenJob getJob(ResourceLocation dimensionId) {
+        return jobs.get(dimensionId);
+    }
+
+    public Collection<PregenJob> jobs() {
+        return jobs.values();
+    }
+
+    public void putJob(PregenJob job) {
+        jobs.put(job.dimensionId(), job);
+        setDirty();
+    }
+
+    public PregenJob removeJob(ResourceLocation dimensionId) {
+        PregenJob job = jobs.remove(dimensionId);
+        if (job != null) {
+            setDirty();
+        }
+        return job;
+    }
+
+    private static PregenSavedData fromNbt(CompoundTag tag) {
+        PregenSavedData data = new PregenSavedData();
+
+        ListTag jobsTag = tag.getList("jobs", Tag.TAG_COMPOUND);
+        for (int i = 0; i < jobsTag.size(); i++) {
+            PregenJob job = PregenJob.fromNbt(jobsTag.getCompound(i));
+            data.jobs.put(job.dimensionId(), job);
+        }
+
+        return data;
+    }
+
+    @Override
+    public CompoundTag save(CompoundTag tag, HolderLookup.Provider provider) {
+        ListTag jobsTag = new ListTag();
+        for (PregenJob job : jobs.values()) {
+            jobsTag.add(job.toNbt());
+        }
+        tag.put("jobs", jobsTag);
+        return tag;
+    }
+}
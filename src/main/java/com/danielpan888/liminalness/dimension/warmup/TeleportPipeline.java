@@ -0,0 +1,117 @@
+package com.danielpan888.liminalness.dimension.warmup;
+
+import com.danielpan888.liminalness.dimension.portallinkage.PortalLinkHandler;
+import com.danielpan888.liminalness.liminalness;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.phys.Vec3;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+// teleports wait on their destination's warm-up instead of dropping players into chunks still being built
+public final class TeleportPipeline {
+
+    // a warm-up that cannot finish never holds a player longer than this
+    private static final long TELEPORT_TIMEOUT_SECONDS = 10;
+
+    // consumesReturnPoint is set when the target came from the player's saved return point
+    public record Destination(ServerLevel level, Vec3 position, float yRot, float xRot, boolean consumesReturnPoint) {}
+
+    private record Pending(ServerLevel source, Destination destination, CompletableFuture<Destination> ready) {}
+
+    private static final Map<UUID, Pending> pending = new HashMap<>();
+
+    private TeleportPipeline() {}
+
+    public static boolean isPending(ServerPlayer player) {
+        return pending.containsKey(player.getUUID());
+    }
+
+    // completes on the server thread once the destination is ready, or with the same destination on timeout
+    public static CompletableFuture<Boolean> request(ServerPlayer player, Destination destination) {
+        MinecraftServer server = player.getServer();
+        if (server == null || isPending(player)) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        UUID playerId = player.getUUID();
+        CompletableFuture<Destination> ready = new CompletableFuture<>();
+        Pending request = new Pending(player.serverLevel(), destination, ready);
+        pending.put(playerId, request);
+
+        if (WarmupHandler.isReady(destination.level(), destination.position())) {
+            ready.complete(destination);
+        }
+
+        return ready
+            .completeOnTimeout(destination, TELEPORT_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+            .thenApplyAsync(target -> {
+                pending.remove(playerId);
+                return teleport(server, playerId, request.source(), target);
+            }, server)
+            .exceptionally(throwable -> {
+                Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+                // only onServerStop cancels, and it has already dropped every pending request
+                if (cause instanceof CancellationException) {
+                    return false;
+                }
+                server.execute(() -> pending.remove(playerId));
+                liminalness.LOGGER.warn("teleport pipeline - request for {} failed: {}", playerId, cause.toString());
+                return false;
+            });
+    }
+
+    public static void tick() {
+        if (pending.isEmpty()) return;
+
+        Iterator<Pending> iterator = pending.values().iterator();
+        while (iterator.hasNext()) {
+            Pending request = iterator.next();
+            if (request.ready().isDone()) continue;
+
+            Destination destination = request.destination();
+            if (WarmupHandler.isReady(destination.level(), destination.position())) {
+                request.ready().complete(destination);
+            }
+        }
+    }
+
+    // cancelling runs the dependent stages inline, so the map is cleared before any of them run
+    public static void onServerStop() {
+        List<Pending> requests = new ArrayList<>(pending.values());
+        pending.clear();
+        for (Pending request : requests) {
+            request.ready().cancel(false);
+        }
+    }
+
+    // a player who logged out, died or changed level while waiting stays where they are, the
+    // destination chunks are loaded by now so teleportTo alone keeps the client in sync
+    private static boolean teleport(MinecraftServer server, UUID playerId, ServerLevel source, Destination target) {
+        ServerPlayer player = server.getPlayerList().getPlayer(playerId);
+        if (player == null || !player.isAlive() || player.hasDisconnected() || player.serverLevel() != source) {
+            return false;
+        }
+
+        Vec3 position = target.position();
+        player.teleportTo(target.level(), position.x, position.y, position.z, target.yRot(), target.xRot());
+        if (player.serverLevel() != target.level()) {
+            return false;
+        }
+
+        if (target.consumesReturnPoint()) {
+            PortalLinkHandler.consumeReturnPoint(player);
+        }
+        return true;
+    }
+}
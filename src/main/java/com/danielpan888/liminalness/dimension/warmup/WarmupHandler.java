@@ -0,0 +1,103 @@
+package com.danielpan888.liminalness.dimension.warmup;
+
+import com.danielpan888.liminalness.dimension.FrontierChunkGenerator;
+import net.minecraft.core.BlockPos;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerChunkCache;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.TicketType;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.phys.Vec3;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+// keeps the area around a linked spawn planned and loaded before anyone teleports into it
+public final class WarmupHandler {
+
+    private static final TicketType<ChunkPos> WARMUP_TICKET = TicketType.create("liminalness_warmup", Comparator.comparingLong(ChunkPos::toLong));
+    private static final int WARMUP_RADIUS_CHUNKS = 2;
+    private static final long WARMUP_TTL_TICKS = 20L * 30;
+
+    private static final class Warmup {
+        private final ChunkPos center;
+        private final BlockPos anchor;
+        private long expiresAt;
+
+        private Warmup(ChunkPos center, BlockPos anchor) {
+            this.center = center;
+            this.anchor = anchor;
+        }
+    }
+
+    private static final Map<ResourceLocation, Map<Long, Warmup>> warmups = new HashMap<>();
+
+    private WarmupHandler() {}
+
+    // starts or refreshes a warm-up around the spawn, repeated calls only push the expiry back
+    public static void warm(ServerLevel level, FrontierChunkGenerator generator, Vec3 spawnPos) {
+        ChunkPos center = new ChunkPos(BlockPos.containing(spawnPos));
+        Map<Long, Warmup> active = warmups.computeIfAbsent(level.dimension().location(), ignored -> new HashMap<>());
+
+        Warmup warmup = active.get(center.toLong());
+        if (warmup == null) {
+            warmup = new Warmup(center, BlockPos.containing(spawnPos.x, generator.playerSpawnGenerationY, spawnPos.z));
+            active.put(center.toLong(), warmup);
+            generator.addPlanningAnchor(warmup.anchor);
+            level.getChunkSource().addRegionTicket(WARMUP_TICKET, center, WARMUP_RADIUS_CHUNKS, center);
+        }
+        warmup.expiresAt = level.getGameTime() + WARMUP_TTL_TICKS;
+    }
+
+    // loaded with every room that reaches it already written, levels outside the mod are always ready
+    public static boolean isReady(ServerLevel level, Vec3 spawnPos) {
+        if (!(level.getChunkSource().getGenerator() instanceof FrontierChunkGenerator generator)) return true;
+
+        ChunkPos center = new ChunkPos(BlockPos.containing(spawnPos));
+        ServerChunkCache chunkSource = level.getChunkSource();
+        for (int dx = -WARMUP_RADIUS_CHUNKS; dx <= WARMUP_RADIUS_CHUNKS; dx++) {
+            for (int dz = -WARMUP_RADIUS_CHUNKS; dz <= WARMUP_RADIUS_CHUNKS; dz++) {
+                int chunkX = center.x + dx;
+                int chunkZ = center.z + dz;
+                if (chunkSource.getChunkNow(chunkX, chunkZ) == null) return false;
+                if (generator.hasPendingRoomChunk(FrontierChunkGenerator.chunkKey(chunkX, chunkZ))) return false;
+            }
+        }
+        return true;
+    }
+
+    public static void tick(ServerLevel level, FrontierChunkGenerator generator) {
+        Map<Long, Warmup> active = warmups.get(level.dimension().location());
+        if (active == null || active.isEmpty()) return;
+
+        long now = level.getGameTime();
+        Iterator<Warmup> iterator = active.values().iterator();
+        while (iterator.hasNext()) {
+            Warmup warmup = iterator.next();
+            if (warmup.expiresAt > now) continue;
+
+            iterator.remove();
+            release(level, generator, warmup);
+        }
+    }
+
+    public static void onLevelUnload(ServerLevel level, FrontierChunkGenerator generator) {
+        Map<Long, Warmup> active = warmups.remove(level.dimension().location());
+        if (active == null) return;
+
+        for (Warmup warmup : active.values()) {
+            release(level, generator, warmup);
+        }
+    }
+
+    public static void onServerStop() {
+        warmups.clear();
+    }
+
+    private static void release(ServerLevel level, FrontierChunkGenerator generator, Warmup warmup) {
+        level.getChunkSource().removeRegionTicket(WARMUP_TICKET, warmup.center, WARMUP_RADIUS_CHUNKS, warmup.center);
+        generator.removePlanningAnchor(warmup.anchor);
+    }
+}
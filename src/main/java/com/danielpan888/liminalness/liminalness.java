@@ -6,7 +6,13 @@ import com.danielpan888.liminalness.dimension.RegisterChunkGenerator;
 import com.danielpan888.liminalness.dimension.bedlinkage.BedLinkDestination;
 import com.danielpan888.liminalness.dimension.bedlinkage.BedLinkHandler;
 import com.danielpan888.liminalness.dimension.portallinkage.PortalLinkHandler;
+import com.danielpan888.liminalness.dimension.pregen.PregenHandler;
+import com.danielpan888.liminalness.dimension.pregen.PregenJob;
+import com.danielpan888.liminalness.dimension.warmup.TeleportPipeline;
+import com.danielpan888.liminalness.util.ChestLootHandler;
+import com.danielpan888.liminalness.util.PortalIndex;
 import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.context.CommandContext;
 import com.mojang.brigadier.suggestion.Suggestions;
 import com.mojang.brigadier.suggestion.SuggestionsBuilder;
@@ -15,6 +21,10 @@ import net.minecraft.core.BlockPos;
 import net.minecraft.core.registries.Registries;
 import net.minecraft.core.particles.DustColorTransitionOptions;
 import net.minecraft.core.particles.ParticleOptions;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.game.ClientGamePacketListener;
+import net.minecraft.network.protocol.game.ClientboundBundlePacket;
+import net.minecraft.network.protocol.game.ClientboundLevelParticlesPacket;
 import net.minecraft.commands.SharedSuggestionProvider;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.MinecraftServer;
@@ -28,10 +38,15 @@ import net.minecraft.resources.ResourceKey;
 import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.block.BedBlock;
 import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.ChestBlock;
 import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.block.state.properties.ChestType;
 import net.minecraft.world.phys.Vec3;
 import net.neoforged.neoforge.event.RegisterCommandsEvent;
+import net.neoforged.neoforge.event.entity.player.PlayerEvent;
 import net.neoforged.neoforge.event.entity.player.PlayerInteractEvent;
+import net.neoforged.neoforge.event.level.BlockEvent;
+import net.neoforged.neoforge.event.level.ChunkEvent;
 import net.neoforged.neoforge.event.level.ChunkWatchEvent;
 import net.neoforged.neoforge.event.level.LevelEvent;
 import net.neoforged.neoforge.event.server.ServerStartingEvent;
@@ -46,6 +61,7 @@ import net.neoforged.bus.api.IEventBus;
 import net.neoforged.bus.api.SubscribeEvent;
 import net.neoforged.fml.common.Mod;
 import net.neoforged.fml.config.ModConfig;
+import net.neoforged.fml.event.config.ModConfigEvent;
 import net.neoforged.fml.ModContainer;
 import net.neoforged.fml.event.lifecycle.FMLCommonSetupEvent;
 import net.neoforged.neoforge.common.NeoForge;
@@ -60,11 +76,30 @@ public class liminalness {
     public static final String MODID = "liminalness";
     public static final Logger LOGGER = LogUtils.getLogger();
 
+    private static final int PORTAL_PREWARM_INTERVAL_TICKS = 10;
+    private static final int PORTAL_PREWARM_DISTANCE = 8;
+    private static final int PORTAL_PARTICLE_DISTANCE = 16;
+    // roughly a 70 degree half angle, wide enough for any normal fov
+    private static final double PORTAL_PARTICLE_VIEW_COS = 0.35;
+
+    private static final ParticleOptions PORTAL_PARTICLE = portalParticle(new Vector3f(0.27f, 0.0f, 0.58f));
+    private static final ParticleOptions STRUCTURE_PORTAL_PARTICLE = portalParticle(new Vector3f(0.45f, 0.24f, 0.10f));
+    private static final ParticleOptions JIGSAW_PORTAL_PARTICLE = portalParticle(new Vector3f(0.10f, 0.65f, 0.20f));
+
+    // block position each player was last checked at, keyed by player
+    private final Map<UUID, Long> lastPortalCheckPositions = new HashMap<>();
+
     public liminalness(IEventBus modEventBus, ModContainer modContainer) {
 //        modEventBus.addListener(this::commonSetup);
         RegisterChunkGenerator.register(modEventBus);
         NeoForge.EVENT_BUS.register(this);
         modContainer.registerConfig(ModConfig.Type.COMMON, Config.SPEC);
+        modEventBus.addListener(this::onConfigReload);
+    }
+
+    private void onConfigReload(ModConfigEvent.Reloading event) {
+        if (event.getConfig().getSpec() != Config.SPEC) return;
+        ChestLootHandler.invalidate();
     }
 
 //    private void commonSetup(FMLCommonSetupEvent event) {
@@ -93,12 +128,15 @@ public class liminalness {
     @SubscribeEvent
     public void onServerStopping(ServerStoppingEvent event) {
         DimensionManager.onServerStop(event.getServer());
+        lastPortalCheckPositions.clear();
+        TeleportPipeline.onServerStop();
     }
 
     @SubscribeEvent
     public void onServerTick(ServerTickEvent.Post event) {
         DimensionManager.onServerTick(event.getServer());
         checkPortals(event.getServer());
+        TeleportPipeline.tick();
     }
 
     @SubscribeEvent
@@ -106,6 +144,23 @@ public class liminalness {
         registerDebugCommand(event.getDispatcher());
     }
 
+    @SubscribeEvent
+    public void onPlayerLoggedOut(PlayerEvent.PlayerLoggedOutEvent event) {
+        lastPortalCheckPositions.remove(event.getEntity().getUUID());
+    }
+
+    // stale chunks are repaired and chests filled on the tick after they load instead of being polled for
+    @SubscribeEvent
+    public void onChunkLoad(ChunkEvent.Load event) {
+        if (!(event.getLevel() instanceof ServerLevel level)) return;
+
+        ResourceLocation dimId = level.dimension().location();
+        if (!(DimensionManager.getInstance(dimId) instanceof FrontierChunkGenerator gen)) return;
+
+        ChunkPos chunkPosition = event.getChunk().getPos();
+        gen.onChunkLoaded(chunkPosition.x, chunkPosition.z);
+    }
+
     // intercept server to update client chunks, prevents client race condition
     @SubscribeEvent
     public void onChunkWatch(ChunkWatchEvent.Watch event) {
@@ -117,6 +172,7 @@ public class liminalness {
         ChunkPos chunkPosition = event.getPos();
         long key = FrontierChunkGenerator.chunkKey(chunkPosition.x, chunkPosition.z);
 
+        gen.applyChunkTransitions();
         if (gen.committedChunks.contains(key)) return;
 
         if (!gen.hasPendingRoomChunk(key)) {
@@ -138,97 +194,170 @@ public class liminalness {
         if (!(event.getLevel() instanceof ServerLevel level)) return;
         if (!(event.getEntity() instanceof ServerPlayer player)) return;
 
-        MinecraftServer server = event.getEntity().getServer();
         BlockPos pos = event.getPos();
         BlockState state = level.getBlockState(pos);
 
+        if (state.getBlock() instanceof ChestBlock) {
+            fillChestMarkers(level, pos, state);
+            return;
+        }
+
         if (!(state.getBlock() instanceof BedBlock)) {
             return;
         }
 
+        // the teleport lands a tick or more later, so vanilla must not sleep, set spawn or
+        // explode the bed in the meantime
+        if (TeleportPipeline.isPending(player)) {
+            event.setCanceled(true);
+            return;
+        }
+
         Optional<BedLinkDestination> destination = BedLinkHandler.resolveDestination(player, pos);
         if (destination.isEmpty()) {
             return;
         }
 
         BedLinkDestination link = destination.get();
-        Vec3 spawnPos = link.spawnPos();
-        ServerLevel targetLevel = link.level();
-
         PortalLinkHandler.rememberReturnPoint(player, level, pos);
+        TeleportPipeline.request(player, new TeleportPipeline.Destination(link.level(), link.spawnPos(), player.getYRot(), player.getXRot(), false));
+        event.setCanceled(true);
+    }
 
-        player.teleportTo(
-                targetLevel,
-                spawnPos.x,
-                spawnPos.y,
-                spawnPos.z,
-                player.getYRot(),
-                player.getXRot()
-        );
+    // breaking a chest nobody opened still drops its loot
+    @SubscribeEvent
+    public void onBlockBreak(BlockEvent.BreakEvent event) {
+        if (!(event.getLevel() instanceof ServerLevel level)) return;
+        if (!(event.getState().getBlock() instanceof ChestBlock)) return;
 
-        server.execute(() -> {
-            player.moveTo(spawnPos.x, spawnPos.y, spawnPos.z, player.getYRot(), player.getXRot());
-            player.connection.teleport(spawnPos.x, spawnPos.y, spawnPos.z, player.getYRot(), player.getXRot());
-        });
+        fillChestMarkers(level, event.getPos(), event.getState());
+    }
+
+    // a double chest opens both halves, so both get their loot
+    private void fillChestMarkers(ServerLevel level, BlockPos pos, BlockState state) {
+        if (!(DimensionManager.getInstance(level.dimension().location()) instanceof FrontierChunkGenerator gen)) return;
+
+        gen.onChestAccess(pos);
+        if (state.getValue(ChestBlock.TYPE) != ChestType.SINGLE) {
+            gen.onChestAccess(pos.relative(ChestBlock.getConnectedDirection(state)));
+        }
     }
 
     private void checkPortals(MinecraftServer server) {
 
+        boolean prewarm = server.getTickCount() % PORTAL_PREWARM_INTERVAL_TICKS == 0;
+        boolean emitParticles = server.getTickCount() % Config.LIMINALNESS_PORTAL_PARTICLE_INTERVAL.get() == 0;
+
         for (var entry : DimensionManager.getInstances().entrySet()) {
             ResourceLocation dimId = entry.getKey();
             FrontierChunkGenerator gen = (FrontierChunkGenerator) entry.getValue();
 
-            if (gen.serverLevel == null) continue;
+            if (gen.serverLevel == null || gen.serverLevel.players().isEmpty()) continue;
 
             List<ServerPlayer> players = new ArrayList<>(gen.serverLevel.players());
 
-            sendPortalParticles(gen.serverLevel, players, gen.portalPositions, new Vector3f(0.27f, 0.0f, 0.58f));
-            sendPortalParticles(gen.serverLevel, players, gen.structurePortalPositions, new Vector3f(0.45f, 0.24f, 0.10f));
-            sendPortalParticles(gen.serverLevel, players, gen.jigsawPortalPositions, new Vector3f(0.10f, 0.65f, 0.20f));
+            if (emitParticles) {
+                sendPortalParticles(players, gen);
+            }
 
+            if (prewarm) {
+                prewarmNearbyPortals(players, dimId, gen.portalPositions);
+            }
 
             for (ServerPlayer player : players) {
                 BlockPos feet = player.blockPosition();
-                if (gen.portalPositions.contains(feet)) {
-                    handlePortalTrigger(player, dimId, feet, false);
-                } else if (gen.structurePortalPositions.contains(feet) || gen.jigsawPortalPositions.contains(feet)) {
-                    handlePortalTrigger(player, dimId, feet, true);
-                }
+                // only a changed block position can step onto a portal
+                Long lastPos = lastPortalCheckPositions.put(player.getUUID(), feet.asLong());
+                if (lastPos != null && lastPos == feet.asLong()) continue;
+
+                boolean linkPortal = gen.portalPositions.contains(feet);
+                boolean returnPortal = !linkPortal && (gen.structurePortalPositions.contains(feet) || gen.jigsawPortalPositions.contains(feet));
+                if (!linkPortal && !returnPortal) continue;
+
+                // a player still standing in the portal or sent to another level is checked again next tick
+                lastPortalCheckPositions.remove(player.getUUID());
+                handlePortalTrigger(player, dimId, feet, returnPortal);
             }
         }
     }
 
-    private void sendPortalParticles(ServerLevel level, List<ServerPlayer> players, Set<BlockPos> portals, Vector3f startColor) {
+    // targets of already linked portals are warmed while the player walks up to them
+    private void prewarmNearbyPortals(List<ServerPlayer> players, ResourceLocation dimId, PortalIndex portals) {
         if (portals.isEmpty()) {
             return;
         }
 
-        ParticleOptions portalParticle = new DustColorTransitionOptions(
+        for (ServerPlayer player : players) {
+            portals.forEachNear(player.blockPosition(), PORTAL_PREWARM_DISTANCE, portalPos -> PortalLinkHandler.prewarm(player, dimId, portalPos));
+        }
+    }
+
+    private static ParticleOptions portalParticle(Vector3f startColor) {
+        return new DustColorTransitionOptions(
             startColor,
             new Vector3f(0.0f, 0.0f, 0.0f),
             1.5f
         );
+    }
 
-        for (BlockPos portalPos : portals) {
-            for (ServerPlayer player : players) {
-                if (player.blockPosition().distSqr(portalPos) > 16 * 16) continue;
-
-                level.sendParticles(
-                    portalParticle,
-                    portalPos.getX() + 0.5,
-                    portalPos.getY() + 0.5,
-                    portalPos.getZ() + 0.5,
-                    1,
-                    0.3,
-                    0.3,
-                    0.3,
-                    0.0
-                );
+    // one bundle per player holding every portal in front of them
+    private void sendPortalParticles(List<ServerPlayer> players, FrontierChunkGenerator gen) {
+        if (gen.portalPositions.isEmpty() && gen.structurePortalPositions.isEmpty() && gen.jigsawPortalPositions.isEmpty()) {
+            return;
+        }
+
+        for (ServerPlayer player : players) {
+            Vec3 eye = player.getEyePosition();
+            Vec3 look = player.getViewVector(1.0F);
+            List<Packet<? super ClientGamePacketListener>> packets = new ArrayList<>();
+
+            collectPortalParticles(player, eye, look, gen.portalPositions, PORTAL_PARTICLE, packets);
+            collectPortalParticles(player, eye, look, gen.structurePortalPositions, STRUCTURE_PORTAL_PARTICLE, packets);
+            collectPortalParticles(player, eye, look, gen.jigsawPortalPositions, JIGSAW_PORTAL_PARTICLE, packets);
+
+            if (packets.size() == 1) {
+                player.connection.send(packets.getFirst());
+            } else if (!packets.isEmpty()) {
+                player.connection.send(new ClientboundBundlePacket(packets));
             }
         }
     }
 
+    private void collectPortalParticles(ServerPlayer player, Vec3 eye, Vec3 look, PortalIndex portals, ParticleOptions particle, List<Packet<? super ClientGamePacketListener>> packets) {
+        portals.forEachNear(player.blockPosition(), PORTAL_PARTICLE_DISTANCE, portalPos -> {
+            if (!isPortalVisible(eye, look, portalPos)) return;
+
+            packets.add(new ClientboundLevelParticlesPacket(
+                particle,
+                false,
+                portalPos.getX() + 0.5,
+                portalPos.getY() + 0.5,
+                portalPos.getZ() + 0.5,
+                0.3f,
+                0.3f,
+                0.3f,
+                0.0f,
+                1
+            ));
+        });
+    }
+
+    // inside the view cone, portals right next to the player always pass; no raycast, a
+    // particle behind a wall costs the client less than a clip per portal costs the server
+    private boolean isPortalVisible(Vec3 eye, Vec3 look, BlockPos portalPos) {
+        Vec3 toPortal = Vec3.atCenterOf(portalPos).subtract(eye);
+        double distance = toPortal.length();
+        if (distance < 2.0) {
+            return true;
+        }
+        return look.dot(toPortal) >= distance * PORTAL_PARTICLE_VIEW_COS;
+    }
+
     private void handlePortalTrigger(ServerPlayer player, ResourceLocation fromDim, BlockPos portalPos, boolean directReturn) {
+        if (TeleportPipeline.isPending(player)) {
+            return;
+        }
+
         Optional<PortalLinkHandler.PortalTeleportTarget> destination = directReturn
                 ? PortalLinkHandler.resolveDirectReturn(player)
                 : PortalLinkHandler.resolveDestination(player, fromDim, portalPos);
@@ -237,14 +366,7 @@ public class liminalness {
         }
 
         PortalLinkHandler.PortalTeleportTarget target = destination.get();
-        Vec3 position = target.position();
-        MinecraftServer server = player.getServer();
-        if (server == null) {
-            return;
-        }
-
-        player.teleportTo(target.level(), position.x, position.y, position.z, target.yRot(), target.xRot());
-        server.execute(() -> player.connection.teleport(position.x, position.y, position.z, target.yRot(), target.xRot()));
+        TeleportPipeline.request(player, new TeleportPipeline.Destination(target.level(), target.position(), target.yRot(), target.xRot(), target.returnPoint()));
     }
 
     private void registerDebugCommand(CommandDispatcher<CommandSourceStack> dispatcher) {
@@ -260,6 +382,33 @@ public class liminalness {
                         ))
                     )
                 )
+                .then(Commands.literal("budget")
+                    .executes(context -> executeBudget(context.getSource()))
+                )
+                .then(Commands.literal("pregen")
+                    .then(Commands.argument("dimension", ResourceLocationArgument.id())
+                        .suggests(this::suggestManagedDimensions)
+                        .then(Commands.argument("radius", IntegerArgumentType.integer(16, 100000))
+                            .executes(context -> executePregenStart(
+                                context.getSource(),
+                                ResourceLocationArgument.getId(context, "dimension"),
+                                IntegerArgumentType.getInteger(context, "radius")
+                            ))
+                        )
+                        .then(Commands.literal("pause")
+                            .executes(context -> executePregenPause(context.getSource(), ResourceLocationArgument.getId(context, "dimension"), true))
+                        )
+                        .then(Commands.literal("resume")
+                            .executes(context -> executePregenPause(context.getSource(), ResourceLocationArgument.getId(context, "dimension"), false))
+                        )
+                        .then(Commands.literal("cancel")
+                            .executes(context -> executePregenCancel(context.getSource(), ResourceLocationArgument.getId(context, "dimension")))
+                        )
+                        .then(Commands.literal("status")
+                            .executes(context -> executePregenStatus(context.getSource(), ResourceLocationArgument.getId(context, "dimension")))
+                        )
+                    )
+                )
         );
     }
 
@@ -282,22 +431,108 @@ public class liminalness {
             return 0;
         }
 
-        ServerLevel targetLevel = server.getLevel(ResourceKey.create(Registries.DIMENSION, dimensionId));
+        FrontierChunkGenerator generator = resolveGenerator(source, dimensionId);
+        if (generator == null) {
+            return 0;
+        }
+        ServerLevel targetLevel = generator.serverLevel;
+
+        BlockPos playerPos = player.blockPosition();
+        if (generator.roomOrigins.isEmpty()) {
+            generator.seedAt(playerPos.getX(), playerPos.getZ());
+        }
+
+        Vec3 spawnPos = generator.ensureLinkedSpawn(playerPos.getX(), playerPos.getZ());
+        player.teleportTo(targetLevel, spawnPos.x, spawnPos.y, spawnPos.z, player.getYRot(), player.getXRot());
+        server.execute(() -> player.connection.teleport(spawnPos.x, spawnPos.y, spawnPos.z, player.getYRot(), player.getXRot()));
+
+        source.sendSuccess(() -> Component.literal("teleported to " + dimensionId + " at " + spawnPos), false);
+        return 1;
+    }
+
+    private int executePregenStart(CommandSourceStack source, ResourceLocation dimensionId, int radius) {
+        FrontierChunkGenerator generator = resolveGenerator(source, dimensionId);
+        if (generator == null) {
+            return 0;
+        }
+
+        BlockPos center = BlockPos.containing(source.getPosition());
+        PregenJob job = PregenHandler.start(generator.serverLevel, generator, center.getX(), center.getZ(), radius);
+        source.sendSuccess(() -> Component.literal("pregenerating " + job.total() + " chunks in " + dimensionId + " around " + center.getX() + ", " + center.getZ()), true);
+        return 1;
+    }
+
+    private int executePregenPause(CommandSourceStack source, ResourceLocation dimensionId, boolean paused) {
+        FrontierChunkGenerator generator = resolveGenerator(source, dimensionId);
+        if (generator == null) {
+            return 0;
+        }
+
+        if (!PregenHandler.setPaused(generator.serverLevel, generator, paused)) {
+            source.sendFailure(Component.literal("no pregen job for " + dimensionId));
+            return 0;
+        }
+        source.sendSuccess(() -> Component.literal((paused ? "paused" : "resumed") + " pregen for " + dimensionId), true);
+        return 1;
+    }
+
+    private int executePregenCancel(CommandSourceStack source, ResourceLocation dimensionId) {
+        FrontierChunkGenerator generator = resolveGenerator(source, dimensionId);
+        if (generator == null) {
+            return 0;
+        }
+
+        if (!PregenHandler.cancel(generator.serverLevel, generator)) {
+            source.sendFailure(Component.literal("no pregen job for " + dimensionId));
+            return 0;
+        }
+        source.sendSuccess(() -> Component.literal("cancelled pregen for " + dimensionId), true);
+        return 1;
+    }
+
+    private int executePregenStatus(CommandSourceStack source, ResourceLocation dimensionId) {
+        PregenJob job = PregenHandler.getJob(source.getServer(), dimensionId);
+        if (job == null) {
+            source.sendFailure(Component.literal("no pregen job for " + dimensionId));
+            return 0;
+        }
+        source.sendSuccess(() -> Component.literal("pregen " + dimensionId + ": " + PregenHandler.describe(job)), false);
+        return 1;
+    }
+
+    // last tick's share of the global step budget per dimension
+    private int executeBudget(CommandSourceStack source) {
+        int listed = 0;
+        for (var entry : DimensionManager.getInstances().entrySet()) {
+            FrontierChunkGenerator gen = (FrontierChunkGenerator) entry.getValue();
+            String line = entry.getKey() + ": " + gen.lastTickRooms() + " rooms of " + gen.lastTickBudget() + " steps in " + gen.lastTickNanos() / 1000 + " us";
+            source.sendSuccess(() -> Component.literal(line), false);
+            listed++;
+        }
+
+        if (listed == 0) {
+            source.sendFailure(Component.literal("no liminalness dimensions loaded"));
+        }
+        return listed;
+    }
+
+    private FrontierChunkGenerator resolveGenerator(CommandSourceStack source, ResourceLocation dimensionId) {
+        ServerLevel targetLevel = source.getServer().getLevel(ResourceKey.create(Registries.DIMENSION, dimensionId));
         if (targetLevel == null) {
             source.sendFailure(Component.literal("dimension not found: " + dimensionId));
-            return 0;
+            return null;
         }
 
         if (!DimensionManager.isRegistered(dimensionId)) {
             source.sendFailure(Component.literal("dimension is not managed by liminalness: " + dimensionId));
-            return 0;
+            return null;
         }
 
         FrontierChunkGenerator generator = (FrontierChunkGenerator) DimensionManager.getInstance(dimensionId);
         if (generator == null) {
             if (!(targetLevel.getChunkSource().getGenerator() instanceof FrontierChunkGenerator frontier)) {
                 source.sendFailure(Component.literal("dimension does not (yet) use the frontier chunk generator: " + dimensionId));
-                return 0;
+                return null;
             }
             generator = frontier;
             generator.serverLevel = targetLevel;
@@ -306,20 +541,13 @@ public class liminalness {
 
         if (!generator.initialized) {
             source.sendFailure(Component.literal("generator is not initialized yet for some reason: " + dimensionId));
-            return 0;
+            return null;
         }
 
-        BlockPos playerPos = player.blockPosition();
-        if (generator.roomOrigins.isEmpty()) {
-            generator.seedAt(playerPos.getX(), playerPos.getZ());
+        if (generator.serverLevel == null) {
+            generator.serverLevel = targetLevel;
         }
-
-        Vec3 spawnPos = generator.ensureLinkedSpawn(playerPos.getX(), playerPos.getZ());
-        player.teleportTo(targetLevel, spawnPos.x, spawnPos.y, spawnPos.z, player.getYRot(), player.getXRot());
-        server.execute(() -> player.connection.teleport(spawnPos.x, spawnPos.y, spawnPos.z, player.getYRot(), player.getXRot()));
-
-        source.sendSuccess(() -> Component.literal("teleported to " + dimensionId + " at " + spawnPos), false);
-        return 1;
+        return generator;
     }
 
 }
@@ -4,6 +4,7 @@ import com.danielpan888.liminalness.Config;
 import com.danielpan888.liminalness.liminalness;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Holder;
+import net.minecraft.core.RegistryAccess;
 import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.core.registries.Registries;
 import net.minecraft.resources.ResourceLocation;
@@ -37,24 +38,93 @@ public class ChestLootHandler {
         Items.LIGHT
     );
 
-    private static List<Item> cachedItemPool = null;
+    private static final int CHEST_SLOTS = 27;
+
+    // everything a fill needs, rebuilt once per registry or config change
+    private record LootTable(
+        RegistryAccess registryAccess,
+        Item[] items,
+        int[] stackCaps,
+        Holder<Enchantment>[] enchantments,
+        Holder<Enchantment>[][] applicableEnchantments,
+        int[] enchantmentMaxLevels,
+        int[][] applicableMaxLevels,
+        boolean enableEnchantments,
+        boolean illegalEnchantments,
+        int maxUniqueItems,
+        int maxEnchantmentCount,
+        float enchantmentRollChance
+    ) {}
+
+    private static volatile LootTable cachedTable = null;
+
+    // config reload can change the blacklist and every limit, the next fill rebuilds
+    public static void invalidate() {
+        cachedTable = null;
+    }
 
-    // build item pool once from the registry
+    // registry items left after the hardcoded and config blacklists
     public static List<Item> getItemPool() {
-        if (cachedItemPool != null) return cachedItemPool;
-
         Set<String> blacklistedModIds = new HashSet<>(Config.LIMINALNESS_BLACKLISTED_MOD_IDS.get());
-        cachedItemPool = new ArrayList<>();
+        List<Item> itemPool = new ArrayList<>();
         for (Item item : BuiltInRegistries.ITEM) {
             if (BLACKLIST.contains(item)) continue;
             if (item.getDefaultInstance().isEmpty()) continue;
             ResourceLocation itemId = BuiltInRegistries.ITEM.getKey(item);
             if (blacklistedModIds.contains(itemId.getNamespace())) continue;
-            cachedItemPool.add(item);
+            itemPool.add(item);
+        }
+        return itemPool;
+    }
+
+    // the enchantment registry belongs to the server's registry access, a new server means a new table
+    private static LootTable getLootTable(ServerLevel level) {
+        LootTable table = cachedTable;
+        if (table != null && table.registryAccess() == level.registryAccess()) return table;
+
+        table = buildLootTable(level.registryAccess());
+        cachedTable = table;
+        return table;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static LootTable buildLootTable(RegistryAccess registryAccess) {
+        Item[] items = getItemPool().toArray(new Item[0]);
+        int maxItemCount = Config.LIMINALNESS_CHEST_ITEM_COUNT.get();
+
+        int[] stackCaps = new int[items.length];
+        for (int i = 0; i < items.length; i++) {
+            stackCaps[i] = Math.min(items[i].getDefaultMaxStackSize(), maxItemCount);
+        }
+
+        List<Holder<Enchantment>> enchantmentPool = new ArrayList<>();
+        registryAccess.lookupOrThrow(Registries.ENCHANTMENT).listElements().forEach(enchantmentPool::add);
+        Holder<Enchantment>[] enchantments = enchantmentPool.toArray(new Holder[0]);
+        int[] enchantmentMaxLevels = maxLevels(enchantments);
+
+        boolean illegalEnchantments = Config.LIMINALNESS_ILLEGAL_ENCHANTMENTS.get();
+        Holder<Enchantment>[][] applicableEnchantments = new Holder[items.length][];
+        int[][] applicableMaxLevels = new int[items.length][];
+        for (int i = 0; i < items.length; i++) {
+            applicableEnchantments[i] = illegalEnchantments ? enchantments : getValidEnchantmentsForStack(items[i].getDefaultInstance(), enchantments);
+            applicableMaxLevels[i] = illegalEnchantments ? enchantmentMaxLevels : maxLevels(applicableEnchantments[i]);
         }
 
-        liminalness.LOGGER.info("chest loot handler - built item pool with {} items", cachedItemPool.size());
-        return cachedItemPool;
+        liminalness.LOGGER.info("chest loot handler - built loot table with {} items and {} enchantments", items.length, enchantments.length);
+        return new LootTable(
+            registryAccess,
+            items,
+            stackCaps,
+            enchantments,
+            applicableEnchantments,
+            enchantmentMaxLevels,
+            applicableMaxLevels,
+            Config.LIMINALNESS_ENABLE_ENCHANTMENTS.get(),
+            illegalEnchantments,
+            Config.LIMINALNESS_CHEST_UNIQUE_ITEMS.get(),
+            Config.LIMINALNESS_CHEST_ENCHANTMENT_COUNT.get(),
+            Config.LIMINALNESS_CHEST_ENCHANTMENT_ROLL_CHANCE.get() / 100.0f
+        );
     }
 
     public static void fillChest(ServerLevel level, BlockPos pos, long worldSeed) {
@@ -66,8 +136,8 @@ public class ChestLootHandler {
             return;
         }
 
-        List<Item> pool = getItemPool();
-        if (pool.isEmpty()) return;
+        LootTable table = getLootTable(level);
+        if (table.items().length == 0) return;
 
         long hash = worldSeed;
         hash ^= (long) pos.getX() * 0x9E3779B97F4A7C15L;
@@ -76,41 +146,39 @@ public class ChestLootHandler {
         hash  = Long.rotateLeft(hash, 31) * 0x94D049BB133111EBL;
         Random rand = new Random(hash);
 
-        int maxUniqueItems = Config.LIMINALNESS_CHEST_UNIQUE_ITEMS.get();
-        int itemCount = 1 + rand.nextInt(maxUniqueItems);
-        List<Integer> slots = new ArrayList<>();
-        for (int i = 0; i < 27; i++) slots.add(i);
+        int itemCount = 1 + rand.nextInt(table.maxUniqueItems());
 
-        List<Holder<Enchantment>> enchantmentPool = getEnchantmentPool(level);
-        boolean enableEnchantments = Config.LIMINALNESS_ENABLE_ENCHANTMENTS.get();
-        boolean illegalEnchantments = Config.LIMINALNESS_ILLEGAL_ENCHANTMENTS.get();
-        int maxItemCount = Config.LIMINALNESS_CHEST_ITEM_COUNT.get();
-        int maxEnchantmentCount = Config.LIMINALNESS_CHEST_ENCHANTMENT_COUNT.get();
-        float enchantmentRollChance = Config.LIMINALNESS_CHEST_ENCHANTMENT_ROLL_CHANCE.get() / 100.0f;
+        // free slots stay in ascending order so the same seed keeps landing in the same slots
+        int[] slots = new int[CHEST_SLOTS];
+        for (int i = 0; i < CHEST_SLOTS; i++) slots[i] = i;
+        int freeSlots = CHEST_SLOTS;
 
-        for (int i = 0; i < itemCount && !slots.isEmpty(); i++) {
-            int slotIndex = rand.nextInt(slots.size());
-            int slot = slots.remove(slotIndex);
+        boolean rollEnchantments = table.enableEnchantments() && table.enchantments().length > 0;
 
-            Item item = pool.get(rand.nextInt(pool.size()));
-            int stackCap = Math.min(item.getDefaultMaxStackSize(), maxItemCount);
-            int count = 1 + rand.nextInt(stackCap);
-            ItemStack stack = new ItemStack(item, count);
+        for (int i = 0; i < itemCount && freeSlots > 0; i++) {
+            int slotIndex = rand.nextInt(freeSlots);
+            int slot = slots[slotIndex];
+            System.arraycopy(slots, slotIndex + 1, slots, slotIndex, freeSlots - slotIndex - 1);
+            freeSlots--;
 
-            if (enableEnchantments && !enchantmentPool.isEmpty() && rand.nextFloat() < enchantmentRollChance) {
-                List<Holder<Enchantment>> applicableEnchantments = !illegalEnchantments ? getValidEnchantmentsForStack(stack, enchantmentPool) : enchantmentPool;
+            int itemIndex = rand.nextInt(table.items().length);
+            int count = 1 + rand.nextInt(table.stackCaps()[itemIndex]);
+            ItemStack stack = new ItemStack(table.items()[itemIndex], count);
 
-                if (applicableEnchantments.isEmpty()) {
+            if (rollEnchantments && rand.nextFloat() < table.enchantmentRollChance()) {
+                Holder<Enchantment>[] applicable = table.applicableEnchantments()[itemIndex];
+                int[] maxLevels = table.applicableMaxLevels()[itemIndex];
+
+                if (applicable.length == 0) {
                     chest.setItem(slot, stack);
                     continue;
                 }
 
-                int enchantCount = 1 + rand.nextInt(maxEnchantmentCount);
+                int enchantCount = 1 + rand.nextInt(table.maxEnchantmentCount());
                 for (int e = 0; e < enchantCount; e++) {
-                    Holder<Enchantment> enchantment = applicableEnchantments.get(rand.nextInt(applicableEnchantments.size()));
-                    int maxLevel = enchantment.value().getMaxLevel();
-                    int enchantmentLevel = 1 + rand.nextInt(maxLevel);
-                    stack.enchant(enchantment, enchantmentLevel);
+                    int enchantmentIndex = rand.nextInt(applicable.length);
+                    int enchantmentLevel = 1 + rand.nextInt(maxLevels[enchantmentIndex]);
+                    stack.enchant(applicable[enchantmentIndex], enchantmentLevel);
                 }
             }
 
@@ -120,21 +188,23 @@ public class ChestLootHandler {
         liminalness.LOGGER.debug("chest loot handler - filled chest at {} with {} items", pos, itemCount);
     }
 
-    private static List<Holder<Enchantment>> getEnchantmentPool(ServerLevel level) {
-        List<Holder<Enchantment>> pool = new ArrayList<>();
-        var registry = level.registryAccess().lookupOrThrow(Registries.ENCHANTMENT);
-        registry.listElements().forEach(pool::add);
-        return pool;
+    private static int[] maxLevels(Holder<Enchantment>[] enchantments) {
+        int[] maxLevels = new int[enchantments.length];
+        for (int i = 0; i < enchantments.length; i++) {
+            maxLevels[i] = enchantments[i].value().getMaxLevel();
+        }
+        return maxLevels;
     }
 
-    private static List<Holder<Enchantment>> getValidEnchantmentsForStack(ItemStack stack, List<Holder<Enchantment>> enchantmentPool) {
+    @SuppressWarnings("unchecked")
+    private static Holder<Enchantment>[] getValidEnchantmentsForStack(ItemStack stack, Holder<Enchantment>[] enchantmentPool) {
         List<Holder<Enchantment>> valid = new ArrayList<>();
         for (Holder<Enchantment> enchantment : enchantmentPool) {
             if (enchantment.value().canEnchant(stack)) {
                 valid.add(enchantment);
             }
         }
-        return valid;
+        return valid.toArray(new Holder[0]);
     }
 
 }
@@ -0,0 +1,117 @@
+package com.danielpan888.liminalness.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+// fifo of entry groups keyed by a packed position, groups keep their entries across defers
+public class FrontierQueue<E> {
+
+    private final Map<Long, Group<E>> groups = new HashMap<>();
+    private Group<E> head;
+    private Group<E> tail;
+
+    public static final class Group<E> {
+        private final long key;
+        private final List<E> entries = new ArrayList<>(2);
+        private Group<E> prev;
+        private Group<E> next;
+
+        private Group(long key) {
+            this.key = key;
+        }
+
+        public long key() {
+            return key;
+        }
+
+        public List<E> entries() {
+            return entries;
+        }
+    }
+
+    public void enqueue(long key, E entry) {
+        Group<E> group = groups.get(key);
+        if (group == null) {
+            group = new Group<>(key);
+            groups.put(key, group);
+            linkLast(group);
+        }
+        group.entries.add(entry);
+    }
+
+    // detaches the oldest group, hand it back through defer to keep it queued
+    public Group<E> poll() {
+        Group<E> group = head;
+        if (group == null) {
+            return null;
+        }
+        unlink(group);
+        groups.remove(group.key);
+        return group;
+    }
+
+    // puts a polled group back at the tail, entries enqueued for its key meanwhile join it
+    public void defer(Group<E> group) {
+        Group<E> existing = groups.putIfAbsent(group.key, group);
+        if (existing != null) {
+            existing.entries.addAll(group.entries);
+            return;
+        }
+        linkLast(group);
+    }
+
+    // walks the queue in order without polling, stops at the first entry that matches
+    public boolean anyMatch(Predicate<? super E> predicate) {
+        for (Group<E> group = head; group != null; group = group.next) {
+            for (E entry : group.entries) {
+                if (predicate.test(entry)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return groups.size();
+    }
+
+    public boolean isEmpty() {
+        return groups.isEmpty();
+    }
+
+    public void clear() {
+        groups.clear();
+        head = null;
+        tail = null;
+    }
+
+    private void linkLast(Group<E> group) {
+        group.prev = tail;
+        group.next = null;
+        if (tail == null) {
+            head = group;
+        } else {
+            tail.next = group;
+        }
+        tail = group;
+    }
+
+    private void unlink(Group<E> group) {
+        if (group.prev == null) {
+            head = group.next;
+        } else {
+            group.prev.next = group.next;
+        }
+        if (group.next == null) {
+            tail = group.prev;
+        } else {
+            group.next.prev = group.prev;
+        }
+        group.prev = null;
+        group.next = null;
+    }
+}
@@ -0,0 +1,112 @@
+package com.danielpan888.liminalness.util;
+
+import net.minecraft.core.BlockPos;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// portal set bucketed by chunk so lookups around a player never walk the whole dimension
+public class PortalIndex extends AbstractSet<BlockPos> {
+
+    private final Set<BlockPos> positions = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Set<BlockPos>> chunkToPortals = new ConcurrentHashMap<>();
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    private static long chunkKey(BlockPos pos) {
+        return chunkKey(pos.getX() >> 4, pos.getZ() >> 4);
+    }
+
+    @Override
+    public boolean add(BlockPos pos) {
+        BlockPos immutable = pos.immutable();
+        if (!positions.add(immutable)) {
+            return false;
+        }
+        chunkToPortals.computeIfAbsent(chunkKey(immutable), ignored -> ConcurrentHashMap.newKeySet()).add(immutable);
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof BlockPos pos) || !positions.remove(pos)) {
+            return false;
+        }
+        unbucket(pos);
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return positions.contains(o);
+    }
+
+    @Override
+    public int size() {
+        return positions.size();
+    }
+
+    @Override
+    public void clear() {
+        positions.clear();
+        chunkToPortals.clear();
+    }
+
+    @Override
+    public Iterator<BlockPos> iterator() {
+        Iterator<BlockPos> backing = positions.iterator();
+        return new Iterator<>() {
+            private BlockPos last;
+
+            @Override
+            public boolean hasNext() {
+                return backing.hasNext();
+            }
+
+            @Override
+            public BlockPos next() {
+                last = backing.next();
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                backing.remove();
+                unbucket(last);
+            }
+        };
+    }
+
+    // only the chunks overlapping the radius are visited, then filtered to the sphere
+    public void forEachNear(BlockPos center, int radius, Consumer<BlockPos> action) {
+        int minChunkX = (center.getX() - radius) >> 4, maxChunkX = (center.getX() + radius) >> 4;
+        int minChunkZ = (center.getZ() - radius) >> 4, maxChunkZ = (center.getZ() + radius) >> 4;
+        long radiusSq = (long) radius * radius;
+
+        for (int cx = minChunkX; cx <= maxChunkX; cx++) {
+            for (int cz = minChunkZ; cz <= maxChunkZ; cz++) {
+                Set<BlockPos> bucket = chunkToPortals.get(chunkKey(cx, cz));
+                if (bucket == null) continue;
+
+                for (BlockPos pos : bucket) {
+                    if (center.distSqr(pos) <= radiusSq) {
+                        action.accept(pos);
+                    }
+                }
+            }
+        }
+    }
+
+    private void unbucket(BlockPos pos) {
+        chunkToPortals.computeIfPresent(chunkKey(pos), (key, bucket) -> {
+            bucket.remove(pos);
+            return bucket.isEmpty() ? null : bucket;
+        });
+    }
+}
@@ -2,20 +2,91 @@ package com.danielpan888.liminalness.util;
 
 import net.minecraft.core.BlockPos;
 
+import java.util.Arrays;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiConsumer;
 import java.util.function.Predicate;
 
 public class RoomSpatialIndex {
 
     private static final int CELL_SIZE = 64;
-    private final Map<Long, Set<BlockPos>> cellToRooms = new ConcurrentHashMap<>();
+    private static final int INITIAL_CAPACITY = 256;
 
-    private final Map<BlockPos, int[]> roomAABBs = new ConcurrentHashMap<>();
+    // cells hold copy-on-write arrays so overlap checks iterate without allocating, and the
+    // table is keyed by primitive cell keys so a lookup never boxes one
+    private volatile CellTable cellToRooms = new CellTable(INITIAL_CAPACITY);
     private final ThreadLocal<Set<BlockPos>> scratchRooms = ThreadLocal.withInitial(HashSet::new);
 
+    private record RoomBox(BlockPos origin, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {}
+
+    // open addressed, one writer at a time and any number of lock-free readers; a slot's key is
+    // written before its cell array is published, and an empty slot is one without a cell array
+    private static final class CellTable {
+        private final long[] keys;
+        private final AtomicReferenceArray<RoomBox[]> cells;
+        private final int mask;
+        private int size;
+
+        private CellTable(int capacity) {
+            keys = new long[capacity];
+            cells = new AtomicReferenceArray<>(capacity);
+            mask = capacity - 1;
+        }
+
+        private RoomBox[] get(long key) {
+            for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+                RoomBox[] cell = cells.get(slot);
+                if (cell == null) return null;
+                if (keys[slot] == key) return cell;
+            }
+        }
+
+        // the caller grows the table first, so there is always a free slot
+        private void put(long key, RoomBox box) {
+            for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+                RoomBox[] cell = cells.get(slot);
+                if (cell == null) {
+                    keys[slot] = key;
+                    cells.set(slot, new RoomBox[]{box});
+                    size++;
+                    return;
+                }
+                if (keys[slot] == key) {
+                    cells.set(slot, append(cell, box));
+                    return;
+                }
+            }
+        }
+
+        private boolean isFull() {
+            return (size + 1) * 2 > keys.length;
+        }
+
+        private CellTable grown() {
+            CellTable grown = new CellTable(keys.length * 2);
+            for (int slot = 0; slot < keys.length; slot++) {
+                RoomBox[] cell = cells.get(slot);
+                if (cell == null) continue;
+
+                int target = grown.slot(keys[slot]);
+                while (grown.cells.get(target) != null) {
+                    target = (target + 1) & grown.mask;
+                }
+                grown.keys[target] = keys[slot];
+                grown.cells.set(target, cell);
+                grown.size++;
+            }
+            return grown;
+        }
+
+        private int slot(long key) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+    }
+
     private static long cellKey(int cellX, int cellZ) {
         return ((long) cellX << 32) | (cellZ & 0xFFFFFFFFL);
     }
@@ -24,61 +95,75 @@ public class RoomSpatialIndex {
         return Math.floorDiv(coord, CELL_SIZE);
     }
 
-    public void add(BlockPos origin, int[] extents) {
+    public synchronized void add(BlockPos origin, int[] extents) {
         int minX = origin.getX(), maxX = minX + extents[0];
         int minY = origin.getY(), maxY = minY + extents[1];
         int minZ = origin.getZ(), maxZ = minZ + extents[2];
 
-        roomAABBs.put(origin, new int[]{minX, minY, minZ, maxX, maxY, maxZ});
+        RoomBox box = new RoomBox(origin, minX, minY, minZ, maxX, maxY, maxZ);
 
         int cellMinX = toCell(minX), cellMaxX = toCell(Math.max(minX, maxX - 1));
         int cellMinZ = toCell(minZ), cellMaxZ = toCell(Math.max(minZ, maxZ - 1));
 
         for (int cx = cellMinX; cx <= cellMaxX; cx++) {
             for (int cz = cellMinZ; cz <= cellMaxZ; cz++) {
-                cellToRooms.computeIfAbsent(cellKey(cx, cz), k -> ConcurrentHashMap.newKeySet()).add(origin);
+                CellTable table = cellToRooms;
+                if (table.isFull()) {
+                    table = table.grown();
+                    cellToRooms = table;
+                }
+                table.put(cellKey(cx, cz), box);
             }
         }
     }
 
-    public boolean overlapsAny(BlockPos origin, int[] extents) {
-        int cMinX = origin.getX(), cMaxX = cMinX + extents[0];
-        int cMinY = origin.getY(), cMaxY = cMinY + extents[1];
-        int cMinZ = origin.getZ(), cMaxZ = cMinZ + extents[2];
-
-        int cellMinX = toCell(cMinX), cellMaxX = toCell(Math.max(cMinX, cMaxX - 1));
-        int cellMinZ = toCell(cMinZ), cellMaxZ = toCell(Math.max(cMinZ, cMaxZ - 1));
+    private static RoomBox[] append(RoomBox[] existing, RoomBox box) {
+        for (int i = 0; i < existing.length; i++) {
+            if (existing[i].origin().equals(box.origin())) {
+                RoomBox[] replaced = existing.clone();
+                replaced[i] = box;
+                return replaced;
+            }
+        }
 
-        Set<BlockPos> checked = scratchRooms.get();
-        checked.clear();
+        RoomBox[] grown = Arrays.copyOf(existing, existing.length + 1);
+        grown[existing.length] = box;
+        return grown;
+    }
 
-        try {
-            for (int cx = cellMinX; cx <= cellMaxX; cx++) {
-                for (int cz = cellMinZ; cz <= cellMaxZ; cz++) {
-                    Set<BlockPos> cell = cellToRooms.get(cellKey(cx, cz));
-                    if (cell == null) continue;
+    public boolean overlapsAny(BlockPos origin, int[] extents) {
+        return overlapsAny(origin.getX(), origin.getY(), origin.getZ(), extents);
+    }
 
-                    for (BlockPos roomOrigin : cell) {
-                        if (!checked.add(roomOrigin)) continue;
+    // a room spanning several cells may be tested more than once, which is harmless for a yes/no answer
+    public boolean overlapsAny(int originX, int originY, int originZ, int[] extents) {
+        int cMinX = originX, cMaxX = cMinX + extents[0];
+        int cMinY = originY, cMaxY = cMinY + extents[1];
+        int cMinZ = originZ, cMaxZ = cMinZ + extents[2];
 
-                        int[] r = roomAABBs.get(roomOrigin);
-                        if (r == null) continue;
+        int cellMinX = toCell(cMinX), cellMaxX = toCell(Math.max(cMinX, cMaxX - 1));
+        int cellMinZ = toCell(cMinZ), cellMaxZ = toCell(Math.max(cMinZ, cMaxZ - 1));
 
-                        if (cMinX < r[3] && cMaxX > r[0]
-                                && cMinY < r[4] && cMaxY > r[1]
-                                && cMinZ < r[5] && cMaxZ > r[2]) {
-                            return true;
-                        }
+        CellTable table = cellToRooms;
+        for (int cx = cellMinX; cx <= cellMaxX; cx++) {
+            for (int cz = cellMinZ; cz <= cellMaxZ; cz++) {
+                RoomBox[] cell = table.get(cellKey(cx, cz));
+                if (cell == null) continue;
+
+                for (RoomBox r : cell) {
+                    if (cMinX < r.maxX() && cMaxX > r.minX()
+                            && cMinY < r.maxY() && cMaxY > r.minY()
+                            && cMinZ < r.maxZ() && cMaxZ > r.minZ()) {
+                        return true;
                     }
                 }
             }
-        } finally {
-            checked.clear();
         }
 
         return false;
     }
 
+    // visits rooms whose footprint overlaps [minX, maxX) x [minZ, maxZ)
     public boolean anyRoomInChunk(int minX, int maxX, int minZ, int maxZ, Predicate<BlockPos> visitor) {
         int cellMinX = toCell(minX), cellMaxX = toCell(maxX);
         int cellMinZ = toCell(minZ), cellMaxZ = toCell(maxZ);
@@ -86,15 +171,18 @@ public class RoomSpatialIndex {
         Set<BlockPos> visited = scratchRooms.get();
         visited.clear();
 
+        CellTable table = cellToRooms;
         try {
             for (int cx = cellMinX; cx <= cellMaxX; cx++) {
                 for (int cz = cellMinZ; cz <= cellMaxZ; cz++) {
-                    Set<BlockPos> cell = cellToRooms.get(cellKey(cx, cz));
+                    RoomBox[] cell = table.get(cellKey(cx, cz));
                     if (cell == null) continue;
 
-                    for (BlockPos roomOrigin : cell) {
-                        if (!visited.add(roomOrigin)) continue;
-                        if (visitor.test(roomOrigin)) {
+                    for (RoomBox room : cell) {
+                        if (room.maxX() <= minX || room.minX() >= maxX) continue;
+                        if (room.maxZ() <= minZ || room.minZ() >= maxZ) continue;
+                        if (!visited.add(room.origin())) continue;
+                        if (visitor.test(room.origin())) {
                             return true;
                         }
                     }
@@ -107,25 +195,41 @@ public class RoomSpatialIndex {
         return false;
     }
 
+    // rooms whose footprint covers one column; a column lies in exactly one cell, so no room is
+    // visited twice and nothing is allocated as long as the action does not capture
+    public <T> void forEachRoomInColumn(int x, int z, T context, BiConsumer<T, BlockPos> action) {
+        RoomBox[] cell = cellToRooms.get(cellKey(toCell(x), toCell(z)));
+        if (cell == null) return;
+
+        for (RoomBox room : cell) {
+            if (x < room.minX() || x >= room.maxX()) continue;
+            if (z < room.minZ() || z >= room.maxZ()) continue;
+            action.accept(context, room.origin());
+        }
+    }
+
     public Set<BlockPos> getRoomsInChunk(int minX, int maxX, int minZ, int maxZ) {
         int cellMinX = toCell(minX), cellMaxX = toCell(maxX);
         int cellMinZ = toCell(minZ), cellMaxZ = toCell(maxZ);
 
         Set<BlockPos> result = new HashSet<>();
 
+        CellTable table = cellToRooms;
         for (int cx = cellMinX; cx <= cellMaxX; cx++) {
             for (int cz = cellMinZ; cz <= cellMaxZ; cz++) {
-                Set<BlockPos> cell = cellToRooms.get(cellKey(cx, cz));
-                if (cell != null) result.addAll(cell);
+                RoomBox[] cell = table.get(cellKey(cx, cz));
+                if (cell == null) continue;
+                for (RoomBox room : cell) {
+                    result.add(room.origin());
+                }
             }
         }
 
         return result;
     }
 
-    public void clear() {
-        cellToRooms.clear();
-        roomAABBs.clear();
+    public synchronized void clear() {
+        cellToRooms = new CellTable(INITIAL_CAPACITY);
     }
 
 }
@@ -0,0 +1,124 @@
+package com.danielpan888.liminalness.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FrontierQueueTest {
+
+    @Test
+    void groupsEntriesByKeyInArrivalOrder() {
+        FrontierQueue<String> queue = new FrontierQueue<>();
+        queue.enqueue(1L, "a");
+        queue.enqueue(2L, "b");
+        queue.enqueue(1L, "c");
+
+        assertEquals(2, queue.size());
+        FrontierQueue.Group<String> first = queue.poll();
+        assertEquals(1L, first.key());
+        assertEquals(List.of("a", "c"), first.entries());
+        assertEquals(List.of("b"), queue.poll().entries());
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void deferredGroupGoesToTheTailAndMergesLateEntries() {
+        FrontierQueue<String> queue = new FrontierQueue<>();
+        queue.enqueue(1L, "a");
+        queue.enqueue(2L, "b");
+
+        FrontierQueue.Group<String> polled = queue.poll();
+        queue.enqueue(1L, "late");
+        queue.defer(polled);
+
+        assertEquals(2, queue.size());
+        assertEquals(List.of("b"), queue.poll().entries());
+        assertEquals(List.of("late", "a"), queue.poll().entries());
+    }
+
+    @Test
+    void anyMatchSeesEveryQueuedEntryWithoutPolling() {
+        FrontierQueue<String> queue = new FrontierQueue<>();
+        queue.enqueue(1L, "a");
+        queue.enqueue(2L, "b");
+        queue.enqueue(1L, "c");
+
+        assertTrue(queue.anyMatch("c"::equals));
+        assertFalse(queue.anyMatch("d"::equals));
+        assertEquals(2, queue.size());
+    }
+
+    // each worker owns one shard for the tick, as in expandNearPlayers, so running the
+    // shards on a pool has to give the same result as running them one after another
+    @Test
+    void shardsDrainedInParallelMatchSerialDrain() throws Exception {
+        int shards = 8;
+        List<FrontierQueue<Integer>> serial = buildShards(shards);
+        List<FrontierQueue<Integer>> parallel = buildShards(shards);
+
+        List<List<Integer>> expected = new ArrayList<>();
+        for (FrontierQueue<Integer> shard : serial) {
+            expected.add(drainDeferringOdd(shard));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            for (int round = 0; round < 50; round++) {
+                List<FrontierQueue<Integer>> fresh = round == 0 ? parallel : buildShards(shards);
+                List<CompletableFuture<List<Integer>>> tasks = new ArrayList<>();
+                for (FrontierQueue<Integer> shard : fresh) {
+                    tasks.add(CompletableFuture.supplyAsync(() -> drainDeferringOdd(shard), pool));
+                }
+                CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).join();
+
+                for (int i = 0; i < shards; i++) {
+                    assertEquals(expected.get(i), tasks.get(i).join(), "shard " + i + " in round " + round);
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static List<FrontierQueue<Integer>> buildShards(int shards) {
+        List<FrontierQueue<Integer>> queues = new ArrayList<>();
+        for (int s = 0; s < shards; s++) {
+            FrontierQueue<Integer> queue = new FrontierQueue<>();
+            for (int i = 0; i < 2_000; i++) {
+                queue.enqueue((long) (i % 500), s * 10_000 + i);
+            }
+            queues.add(queue);
+        }
+        return queues;
+    }
+
+    // odd keys are deferred once, the way out of range groups are, then everything drains
+    private static List<Integer> drainDeferringOdd(FrontierQueue<Integer> queue) {
+        List<Integer> order = new ArrayList<>();
+        int scanLimit = queue.size();
+        for (int scanned = 0; scanned < scanLimit; scanned++) {
+            FrontierQueue.Group<Integer> group = queue.poll();
+            if ((group.key() & 1L) == 1L) {
+                queue.defer(group);
+                continue;
+            }
+            order.addAll(group.entries());
+        }
+
+        FrontierQueue.Group<Integer> group;
+        while ((group = queue.poll()) != null) {
+            order.addAll(group.entries());
+        }
+        return order;
+    }
+}
@@ -0,0 +1,66 @@
+package com.danielpan888.liminalness.util;
+
+import net.minecraft.core.BlockPos;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// allocation benchmark for the overlap probe evaluateFrontier runs once per candidate origin
+class RoomSpatialIndexAllocationTest {
+
+    private static final int[] ROOM_EXTENTS = {16, 8, 16};
+    private static final int GRID = 64;
+    private static final int WARMUP_PROBES = 200_000;
+    private static final int MEASURED_PROBES = 1_000_000;
+    // a probe allocates nothing, the slack only absorbs the counter's own bookkeeping
+    private static final double MAX_BYTES_PER_PROBE = 1.0;
+
+    @Test
+    void overlapProbeDoesNotAllocatePerRoom() {
+        com.sun.management.ThreadMXBean threads = allocationCounter();
+
+        RoomSpatialIndex index = new RoomSpatialIndex();
+        for (int x = 0; x < GRID; x++) {
+            for (int z = 0; z < GRID; z++) {
+                index.add(new BlockPos(x * 24, 64, z * 24), ROOM_EXTENTS);
+            }
+        }
+
+        long sink = probe(index, WARMUP_PROBES);
+
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        sink += probe(index, MEASURED_PROBES);
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        double bytesPerProbe = (double) allocated / MEASURED_PROBES;
+        System.out.printf("room index overlap probe: %.3f bytes/probe over %d probes (%d hits)%n", bytesPerProbe, MEASURED_PROBES, sink);
+        assertTrue(bytesPerProbe <= MAX_BYTES_PER_PROBE, "overlap probe allocated " + bytesPerProbe + " bytes per call");
+    }
+
+    // walks candidate origins across the grid, hitting rooms and the gaps between them
+    private static long probe(RoomSpatialIndex index, int count) {
+        long hits = 0;
+        int span = GRID * 24;
+        for (int i = 0; i < count; i++) {
+            int x = (i * 37) % span;
+            int z = (i * 53) % span;
+            if (index.overlapsAny(x, 60, z, ROOM_EXTENTS)) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        Assumptions.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean,
+            "per-thread allocation counters are not available on this JVM");
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(threads.isThreadAllocatedMemorySupported(), "per-thread allocation counters are not supported");
+        threads.setThreadAllocatedMemoryEnabled(true);
+        return threads;
+    }
+}
@@ -0,0 +1,113 @@
+package com.danielpan888.liminalness.util;
+
+import net.minecraft.core.BlockPos;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// expansion on one thread placing rooms while worldgen workers read the index, the way
+// placeCandidate and fillFromNoise share it in the generator
+class RoomSpatialIndexConcurrencyTest {
+
+    private static final int[] ROOM_EXTENTS = {16, 8, 16};
+    private static final int SPACING = 20;
+    private static final int GRID = 96;
+    private static final int READERS = 4;
+
+    @Test
+    void readersOnlySeePublishedRoomsWhileTheTableGrows() throws Exception {
+        RoomSpatialIndex index = new RoomSpatialIndex();
+        Map<BlockPos, Integer> roomOrigins = new ConcurrentHashMap<>();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicInteger placed = new AtomicInteger();
+        AtomicInteger unresolved = new AtomicInteger();
+        AtomicInteger missed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(READERS + 1);
+        try {
+            Future<?> writer = pool.submit(() -> {
+                await(start);
+                int i = 0;
+                for (int x = 0; x < GRID; x++) {
+                    for (int z = 0; z < GRID; z++) {
+                        BlockPos origin = new BlockPos(x * SPACING, 64, z * SPACING);
+                        // same order as the generator: origin first, then the index
+                        roomOrigins.put(origin, i++);
+                        index.add(origin, ROOM_EXTENTS);
+                        placed.incrementAndGet();
+                    }
+                }
+                writing.set(false);
+            });
+
+            List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < READERS; r++) {
+                int seed = r;
+                readers.add(pool.submit(() -> {
+                    await(start);
+                    int probe = seed;
+                    while (writing.get()) {
+                        // every room published before this read started has to be found
+                        int known = placed.get();
+                        if (known > 0) {
+                            int room = (probe * 7919) % known;
+                            BlockPos origin = new BlockPos(room / GRID * SPACING, 64, room % GRID * SPACING);
+                            if (!index.overlapsAny(origin, ROOM_EXTENTS)) {
+                                missed.incrementAndGet();
+                            }
+                        }
+
+                        int chunkX = (probe * 31) % (GRID * SPACING / 16);
+                        int chunkZ = (probe * 17) % (GRID * SPACING / 16);
+                        index.anyRoomInChunk(chunkX * 16, chunkX * 16 + 16, chunkZ * 16, chunkZ * 16 + 16, origin -> {
+                            if (!roomOrigins.containsKey(origin)) {
+                                unresolved.incrementAndGet();
+                            }
+                            return false;
+                        });
+                        probe++;
+                    }
+                }));
+            }
+
+            start.countDown();
+            writer.get(60, TimeUnit.SECONDS);
+            for (Future<?> reader : readers) {
+                reader.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(0, missed.get(), "published rooms missing from the index");
+        assertEquals(0, unresolved.get(), "indexed origins without a room");
+
+        for (int x = 0; x < GRID; x++) {
+            for (int z = 0; z < GRID; z++) {
+                assertTrue(index.overlapsAny(new BlockPos(x * SPACING, 64, z * SPACING), ROOM_EXTENTS));
+            }
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}